@@ -13,25 +13,59 @@ FLUSH PRIVILEGES;
 -- Create users table if it doesn't exist
 CREATE TABLE IF NOT EXISTS users (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    email VARCHAR(255) UNIQUE NOT NULL,
+    email VARCHAR(255) NOT NULL,
     name VARCHAR(255) NOT NULL,
-    password VARCHAR(255) NOT NULL
+    password VARCHAR(255) NOT NULL,
+    UNIQUE INDEX uk_users_email (email)
 );
 
 -- Create expenses table if it doesn't exist
+-- Every query is scoped to one user, so every index leads with user_id,
+-- except idx_expenses_date, which the archive job walks across all users
 CREATE TABLE IF NOT EXISTS expenses (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
     description TEXT NOT NULL,
     amount DECIMAL(10, 2) NOT NULL,
     category VARCHAR(100) NOT NULL,
-    date VARCHAR(255) NOT NULL
+    expense_date DATE NOT NULL,
+    INDEX idx_expenses_user (user_id),
+    INDEX idx_expenses_user_date (user_id, expense_date),
+    INDEX idx_expenses_user_category (user_id, category),
+    INDEX idx_expenses_user_amount (user_id, amount),
+    INDEX idx_expenses_date (expense_date),
+    CONSTRAINT fk_expenses_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+-- Cold tier: expenses moved out of the expenses table by the archive job (same ids and columns)
+CREATE TABLE IF NOT EXISTS expenses_archive (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    description TEXT NOT NULL,
+    amount DECIMAL(10, 2) NOT NULL,
+    category VARCHAR(100) NOT NULL,
+    expense_date DATE NOT NULL,
+    INDEX idx_expenses_archive_user (user_id),
+    CONSTRAINT fk_expenses_archive_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+-- Sum and count of each user's archived expenses per month and category
+CREATE TABLE IF NOT EXISTS expense_monthly_rollups (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    month_start DATE NOT NULL,
+    category VARCHAR(100) NOT NULL,
+    total DECIMAL(15, 2) NOT NULL,
+    expense_count BIGINT NOT NULL,
+    UNIQUE INDEX uk_expense_rollups_user_month_category (user_id, month_start, category),
+    CONSTRAINT fk_expense_rollups_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
 );
 
 -- Insert sample data (optional)
 INSERT IGNORE INTO users (id, email, name, password) VALUES 
 (1, 'demo@example.com', 'Demo User', '$2a$10$example_hashed_password');
 
-INSERT IGNORE INTO expenses (description, amount, category, date) VALUES 
-('Weekly grocery shopping', 150.00, 'Food', '2025-09-12'),
-('Fuel for car', 45.00, 'Transport', '2025-09-12'),
-('Monthly subscription', 15.99, 'Entertainment', '2025-09-12');
\ No newline at end of file
+INSERT IGNORE INTO expenses (user_id, description, amount, category, expense_date) VALUES 
+(1, 'Weekly grocery shopping', 150.00, 'Food', '2025-09-12'),
+(1, 'Fuel for car', 45.00, 'Transport', '2025-09-12'),
+(1, 'Monthly subscription', 15.99, 'Entertainment', '2025-09-12');
\ No newline at end of file
@@ -0,0 +1,70 @@
+-- Migration: typed, indexed expense date, part 1 of 2 (add and backfill)
+--
+-- Moves expenses.date (VARCHAR) to a DATE column, expense_date, which the application maps as
+-- LocalDate. Part 2 (001b_expense_date_enforce.sql) indexes it and makes it NOT NULL.
+-- Fresh databases get the final schema from init.sql.
+--
+-- The whole script can be run any number of times: the column is only added when missing and
+-- the backfill only touches rows whose expense_date is still NULL. Every ALTER is online on
+-- MySQL 8 (no table copy, concurrent reads and writes allowed). The backfill updates small id
+-- ranges and commits after each one, so it never holds long row locks.
+--
+-- Values that are not ISO yyyy-MM-dd are left NULL and listed at the end of the script; nothing
+-- is guessed. Fix them by hand (UPDATE expenses SET date = '2024-03-01' WHERE id = ...) and run
+-- this script again. 001b refuses to run while any are left. (A well-formed but impossible date
+-- such as 2024-02-30 stops the backfill with an "Incorrect datetime value" error instead; fix it
+-- the same way.)
+--
+-- Order of operations:
+--   1. Run this script while the previous release is still serving traffic.
+--   2. Fix the listed rows, if any, and run this script again until none are listed.
+--   3. Deploy the new release (it writes expense_date only).
+--   4. Run this script again to pick up rows the previous release inserted in between.
+--   5. Run 001b_expense_date_enforce.sql.
+
+USE expenseDB;
+
+DROP PROCEDURE IF EXISTS add_expense_date;
+DROP PROCEDURE IF EXISTS backfill_expense_date;
+
+DELIMITER //
+
+-- Step 1: add the new column when missing (metadata-only change)
+CREATE PROCEDURE add_expense_date()
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                    WHERE table_schema = DATABASE() AND table_name = 'expenses' AND column_name = 'expense_date') THEN
+        ALTER TABLE expenses ADD COLUMN expense_date DATE NULL, ALGORITHM=INSTANT;
+    END IF;
+END //
+
+-- Step 3: backfill the well-formed values in batches of 5000 ids
+CREATE PROCEDURE backfill_expense_date()
+BEGIN
+    DECLARE batch_start BIGINT DEFAULT 0;
+    DECLARE max_id BIGINT;
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM expenses;
+    WHILE batch_start < max_id DO
+        UPDATE expenses
+           SET expense_date = STR_TO_DATE(date, '%Y-%m-%d')
+         WHERE id > batch_start AND id <= batch_start + 5000
+           AND expense_date IS NULL
+           AND date REGEXP '^[0-9]{4}-[0-9]{2}-[0-9]{2}$';
+        COMMIT;
+        SET batch_start = batch_start + 5000;
+    END WHILE;
+END //
+
+DELIMITER ;
+
+CALL add_expense_date();
+
+-- Step 2: the new release no longer writes the legacy column
+ALTER TABLE expenses MODIFY COLUMN date VARCHAR(255) NULL, ALGORITHM=INPLACE, LOCK=NONE;
+
+CALL backfill_expense_date();
+DROP PROCEDURE add_expense_date;
+DROP PROCEDURE backfill_expense_date;
+
+-- Rows that still need a date: fix these by hand, then run this script again
+SELECT id, date FROM expenses WHERE expense_date IS NULL ORDER BY id;
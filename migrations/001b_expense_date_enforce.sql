@@ -0,0 +1,46 @@
+-- Migration: typed, indexed expense date, part 2 of 2 (enforce)
+--
+-- Indexes expense_date and makes it NOT NULL. Only run this once every running instance is the
+-- release that writes expense_date and 001a has been run again after that deployment (see the
+-- order of operations in 001a_expense_date_backfill.sql).
+--
+-- Step 1 stops the script (mysql aborts on the error) while any row has no expense_date, so an
+-- unparseable legacy date is never replaced by a made-up one. Every ALTER is online on MySQL 8.
+
+USE expenseDB;
+
+DROP PROCEDURE IF EXISTS check_expense_dates;
+DROP PROCEDURE IF EXISTS add_expense_date_index;
+
+DELIMITER //
+
+-- Step 1: every row must have a date
+CREATE PROCEDURE check_expense_dates()
+BEGIN
+    IF EXISTS (SELECT 1 FROM expenses WHERE expense_date IS NULL) THEN
+        SIGNAL SQLSTATE '45000'
+            SET MESSAGE_TEXT = 'Expenses without expense_date: fix the rows listed by 001a_expense_date_backfill.sql and run it again';
+    END IF;
+END //
+
+-- Step 2: index the typed column for range queries, when missing
+CREATE PROCEDURE add_expense_date_index()
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                    WHERE table_schema = DATABASE() AND table_name = 'expenses' AND index_name = 'idx_expenses_date') THEN
+        ALTER TABLE expenses ADD INDEX idx_expenses_date (expense_date), ALGORITHM=INPLACE, LOCK=NONE;
+    END IF;
+END //
+
+DELIMITER ;
+
+CALL check_expense_dates();
+CALL add_expense_date_index();
+DROP PROCEDURE check_expense_dates;
+DROP PROCEDURE add_expense_date_index;
+
+-- Step 3: enforce NOT NULL
+ALTER TABLE expenses MODIFY COLUMN expense_date DATE NOT NULL, ALGORITHM=INPLACE, LOCK=NONE;
+
+-- Step 4: drop the legacy column once nothing reads it any more
+-- ALTER TABLE expenses DROP COLUMN date, ALGORITHM=INPLACE, LOCK=NONE;
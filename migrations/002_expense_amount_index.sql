@@ -0,0 +1,11 @@
+-- Migration: index on expenses.amount
+--
+-- The AI insight endpoints ask for the largest expenses with ORDER BY amount DESC LIMIT n.
+-- With this index MySQL reads the first n index entries instead of sorting the table.
+-- Fresh databases get it from init.sql.
+--
+-- Online on MySQL 8: built in place, concurrent reads and writes are allowed.
+
+USE expenseDB;
+
+ALTER TABLE expenses ADD INDEX idx_expenses_amount (amount), ALGORITHM=INPLACE, LOCK=NONE;
@@ -0,0 +1,36 @@
+-- Migration: unique index on users.email
+--
+-- Registration inserts and lets the unique index reject duplicate emails, instead of
+-- checking with a SELECT first. Databases created by init.sql already have a unique key
+-- (named "email"); it is renamed to uk_users_email, the name the application maps.
+-- Databases created by Hibernate get the index added.
+--
+-- Online on MySQL 8: RENAME INDEX is metadata-only, ADD UNIQUE INDEX is built in place
+-- with concurrent reads and writes allowed.
+--
+-- Adding the index fails if duplicate emails already exist. List them first with:
+--   SELECT LOWER(email), COUNT(*) FROM users GROUP BY LOWER(email) HAVING COUNT(*) > 1;
+
+USE expenseDB;
+
+DELIMITER //
+CREATE PROCEDURE add_users_email_unique()
+BEGIN
+    DECLARE existing VARCHAR(64);
+    SELECT MIN(index_name) INTO existing
+      FROM information_schema.statistics
+     WHERE table_schema = DATABASE() AND table_name = 'users'
+       AND column_name = 'email' AND non_unique = 0 AND seq_in_index = 1;
+    IF existing IS NULL THEN
+        ALTER TABLE users ADD UNIQUE INDEX uk_users_email (email), ALGORITHM=INPLACE, LOCK=NONE;
+    ELSEIF existing <> 'uk_users_email' THEN
+        SET @rename = CONCAT('ALTER TABLE users RENAME INDEX `', existing, '` TO uk_users_email');
+        PREPARE statement FROM @rename;
+        EXECUTE statement;
+        DEALLOCATE PREPARE statement;
+    END IF;
+END //
+DELIMITER ;
+
+CALL add_users_email_unique();
+DROP PROCEDURE add_users_email_unique;
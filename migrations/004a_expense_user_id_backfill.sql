@@ -0,0 +1,78 @@
+-- Migration: per-user expenses, part 1 of 2 (add and backfill)
+--
+-- Adds expenses.user_id (the owner, users.id) and the indexes that lead with user_id, so every
+-- query reads only that user's rows, then assigns an owner to every row that has none.
+-- Part 2 (004b_expense_user_id_enforce.sql) makes the column NOT NULL and adds the foreign key.
+-- Fresh databases get the final schema from init.sql.
+--
+-- The whole script can be run any number of times: the column and indexes are only added when
+-- missing, and the backfill only touches rows whose user_id is still NULL. Every ALTER is online
+-- on MySQL 8 (no table copy, concurrent reads and writes allowed). The backfill updates small id
+-- ranges and commits after each one, so it never holds long row locks. The column stays
+-- nullable, so the previous release, which does not set user_id, keeps working.
+--
+-- Existing expenses had no owner. They are assigned to the user with the lowest id, or to
+-- @legacy_owner if it is set in the same session before running the script:
+--   SET @legacy_owner = 42; SOURCE migrations/004a_expense_user_id_backfill.sql;
+--
+-- Order of operations:
+--   1. Run this script while the previous release is still serving traffic.
+--   2. Deploy the new release (it always writes user_id).
+--   3. Run this script again to pick up rows the previous release inserted in between.
+--   4. Run 004b_expense_user_id_enforce.sql.
+
+USE expenseDB;
+
+DROP PROCEDURE IF EXISTS add_expense_user_id;
+DROP PROCEDURE IF EXISTS backfill_expense_user_id;
+
+DELIMITER //
+
+-- Step 1: add the column and the per-user indexes when missing (the column is metadata-only)
+CREATE PROCEDURE add_expense_user_id()
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                    WHERE table_schema = DATABASE() AND table_name = 'expenses' AND column_name = 'user_id') THEN
+        ALTER TABLE expenses ADD COLUMN user_id BIGINT NULL, ALGORITHM=INSTANT;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                    WHERE table_schema = DATABASE() AND table_name = 'expenses' AND index_name = 'idx_expenses_user') THEN
+        ALTER TABLE expenses
+            ADD INDEX idx_expenses_user (user_id),
+            ADD INDEX idx_expenses_user_date (user_id, expense_date),
+            ADD INDEX idx_expenses_user_category (user_id, category),
+            ADD INDEX idx_expenses_user_amount (user_id, amount),
+            ALGORITHM=INPLACE, LOCK=NONE;
+    END IF;
+END //
+
+-- Step 2: backfill in batches of 5000 ids
+CREATE PROCEDURE backfill_expense_user_id()
+BEGIN
+    DECLARE legacy_owner BIGINT;
+    DECLARE batch_start BIGINT DEFAULT 0;
+    DECLARE max_id BIGINT;
+    SET legacy_owner = COALESCE(@legacy_owner, (SELECT MIN(id) FROM users));
+    IF legacy_owner IS NULL THEN
+        SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'No legacy owner: create a user first';
+    END IF;
+    SELECT COALESCE(MAX(id), 0) INTO max_id FROM expenses;
+    WHILE batch_start < max_id DO
+        UPDATE expenses
+           SET user_id = legacy_owner
+         WHERE id > batch_start AND id <= batch_start + 5000
+           AND user_id IS NULL;
+        COMMIT;
+        SET batch_start = batch_start + 5000;
+    END WHILE;
+END //
+
+DELIMITER ;
+
+CALL add_expense_user_id();
+CALL backfill_expense_user_id();
+DROP PROCEDURE add_expense_user_id;
+DROP PROCEDURE backfill_expense_user_id;
+
+-- Rows still without an owner (0 unless the previous release inserted some since the backfill)
+SELECT COUNT(*) AS expenses_without_owner FROM expenses WHERE user_id IS NULL;
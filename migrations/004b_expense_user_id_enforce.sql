@@ -0,0 +1,46 @@
+-- Migration: per-user expenses, part 2 of 2 (enforce)
+--
+-- Makes expenses.user_id NOT NULL and adds the foreign key to users. From then on, deleting a
+-- user also deletes their expenses, and inserts without user_id fail, so only run this once
+-- every running instance is the release that writes user_id and 004a has been run again after
+-- that deployment (see the order of operations in 004a_expense_user_id_backfill.sql).
+--
+-- Step 1 stops the script (mysql aborts on the error) if any row has no owner or an owner that
+-- does not exist. Both ALTERs are online on MySQL 8; adding the foreign key needs
+-- foreign_key_checks=0 to run in place, which is safe because step 1 has checked for orphans.
+
+USE expenseDB;
+
+DROP PROCEDURE IF EXISTS check_expense_owners;
+
+DELIMITER //
+
+-- Step 1: every row must have an existing owner
+CREATE PROCEDURE check_expense_owners()
+BEGIN
+    IF EXISTS (SELECT 1 FROM expenses WHERE user_id IS NULL) THEN
+        SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'Expenses without user_id: run 004a_expense_user_id_backfill.sql again';
+    END IF;
+    IF EXISTS (SELECT 1 FROM expenses e LEFT JOIN users u ON u.id = e.user_id WHERE u.id IS NULL) THEN
+        SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'Expenses owned by missing users: reassign or delete them first';
+    END IF;
+END //
+
+DELIMITER ;
+
+CALL check_expense_owners();
+DROP PROCEDURE check_expense_owners;
+
+-- Step 2: enforce NOT NULL and the foreign key
+ALTER TABLE expenses MODIFY COLUMN user_id BIGINT NOT NULL, ALGORITHM=INPLACE, LOCK=NONE;
+SET foreign_key_checks = 0;
+ALTER TABLE expenses ADD CONSTRAINT fk_expenses_user FOREIGN KEY (user_id) REFERENCES users (id)
+    ON DELETE CASCADE, ALGORITHM=INPLACE, LOCK=NONE;
+SET foreign_key_checks = 1;
+
+-- Step 3: drop the single-column indexes once nothing uses them any more.
+-- idx_expenses_date stays: the archive job walks it (see 006_expense_date_index.sql).
+-- ALTER TABLE expenses
+--     DROP INDEX idx_expenses_category,
+--     DROP INDEX idx_expenses_amount,
+--     ALGORITHM=INPLACE, LOCK=NONE;
@@ -0,0 +1,38 @@
+-- Migration: archive table and monthly rollups for old expenses
+--
+-- Creates the cold tier used by the archive job (expenses.archive.enabled=true):
+-- expenses_archive holds rows moved out of expenses, expense_monthly_rollups their sums
+-- per user, month and category. Fresh databases get both tables from init.sql.
+--
+-- Only new, empty tables are created, so this is safe to run while the previous release
+-- is serving traffic. Nothing is moved until the job is enabled; it then moves rows in
+-- small batches, one short transaction each.
+--
+-- Order of operations:
+--   1. Run this script.
+--   2. Deploy the new release with the job still disabled.
+--   3. Enable the job (expenses.archive.enabled=true). Its first run moves the whole backlog.
+
+USE expenseDB;
+
+CREATE TABLE IF NOT EXISTS expenses_archive (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    description TEXT NOT NULL,
+    amount DECIMAL(10, 2) NOT NULL,
+    category VARCHAR(100) NOT NULL,
+    expense_date DATE NOT NULL,
+    INDEX idx_expenses_archive_user (user_id),
+    CONSTRAINT fk_expenses_archive_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS expense_monthly_rollups (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    month_start DATE NOT NULL,
+    category VARCHAR(100) NOT NULL,
+    total DECIMAL(15, 2) NOT NULL,
+    expense_count BIGINT NOT NULL,
+    UNIQUE INDEX uk_expense_rollups_user_month_category (user_id, month_start, category),
+    CONSTRAINT fk_expense_rollups_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
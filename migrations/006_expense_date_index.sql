@@ -0,0 +1,30 @@
+-- Migration: index on expenses.expense_date for the archive job
+--
+-- The archive job (ExpenseArchiveService) picks the rows to move with
+-- WHERE expense_date < ? ORDER BY expense_date, id LIMIT n. The per-user indexes from 004a all
+-- lead with user_id, so without this index every batch scans the primary key. With it each batch
+-- reads only the rows it moves. Fresh databases get it from init.sql.
+--
+-- Databases that never dropped the single-column idx_expenses_date (optional step 3 of 004b)
+-- already have it; the index is only added when missing, so the script can be run either way.
+-- Online on MySQL 8: built in place, concurrent reads and writes are allowed.
+-- Run it before enabling expenses.archive.enabled.
+
+USE expenseDB;
+
+DROP PROCEDURE IF EXISTS add_expense_date_index;
+
+DELIMITER //
+
+CREATE PROCEDURE add_expense_date_index()
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                    WHERE table_schema = DATABASE() AND table_name = 'expenses' AND index_name = 'idx_expenses_date') THEN
+        ALTER TABLE expenses ADD INDEX idx_expenses_date (expense_date), ALGORITHM=INPLACE, LOCK=NONE;
+    END IF;
+END //
+
+DELIMITER ;
+
+CALL add_expense_date_index();
+DROP PROCEDURE add_expense_date_index;
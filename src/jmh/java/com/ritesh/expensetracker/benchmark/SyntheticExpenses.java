@@ -0,0 +1,46 @@
+package com.ritesh.expensetracker.benchmark;
+
+import com.ritesh.expensetracker.model.Expense;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Deterministic synthetic expense data for benchmarks
+public final class SyntheticExpenses {
+
+    public static final String[] CATEGORIES = {
+        "Food", "Grocery", "Transport", "Entertainment", "Utilities", "Shopping",
+        "Health", "Rent", "Travel", "Education", "Insurance", "Gifts"
+    };
+
+    private static final String[] DESCRIPTIONS = {
+        "Weekly grocery shopping", "Fuel for car", "Monthly subscription", "Dinner with friends",
+        "Electricity bill", "New running shoes", "Pharmacy", "Train ticket to the city centre"
+    };
+
+    // Owner of every generated expense
+    public static final long USER_ID = 1L;
+
+    private SyntheticExpenses() {}
+
+    // rows expenses with ids 1..rows owned by USER_ID, dated over the two years before today
+    public static List<Expense> generate(int rows) {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDate today = LocalDate.now();
+        List<Expense> expenses = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            double amount = random.nextInt(1, 50_000) / 100.0;
+            Expense expense = new Expense(
+                    (long) i + 1,
+                    DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)],
+                    amount,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    today.minusDays(random.nextInt(730)));
+            expense.setUserId(USER_ID);
+            expenses.add(expense);
+        }
+        return expenses;
+    }
+}
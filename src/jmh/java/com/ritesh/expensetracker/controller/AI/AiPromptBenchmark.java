@@ -0,0 +1,126 @@
+package com.ritesh.expensetracker.controller.AI;
+
+import com.ritesh.expensetracker.benchmark.SyntheticExpenses;
+import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.service.AI.ExpenseAggregation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Query analysis, aggregation and prompt building for every QueryType.
+// Relevant-data selection is done by targeted database queries and is not measured here.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AiPromptBenchmark {
+
+    private static final Map<AiController.QueryType, String> QUERIES = Map.of(
+            AiController.QueryType.SPENDING_TRENDS, "What is my spending trend over time?",
+            AiController.QueryType.CATEGORY_ANALYSIS, "Give me a category breakdown for food",
+            AiController.QueryType.BUDGET_INSIGHTS, "Where can I cut my budget?",
+            AiController.QueryType.RECENT_ACTIVITY, "What did I spend this week?",
+            AiController.QueryType.GENERAL, "Any insights?");
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"SPENDING_TRENDS", "CATEGORY_ANALYSIS", "BUDGET_INSIGHTS", "RECENT_ACTIVITY", "GENERAL"})
+    public String queryType;
+
+    private AiController controller;
+    private List<Expense> expenses;
+    private ExpenseAggregation aggregation;
+    private AiController.QueryType type;
+    private String query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        expenses = SyntheticExpenses.generate(rows);
+        controller = new AiController();
+        ReflectionTestUtils.setField(controller, "promptTokenBudget", 700);
+        type = AiController.QueryType.valueOf(queryType);
+        query = QUERIES.get(type);
+        aggregation = ExpenseAggregation.of(expenses, AiController.PROMPT_TOP_K);
+    }
+
+    @Benchmark
+    public AiController.QueryType analyzeQueryType() {
+        return controller.analyzeQueryType(query);
+    }
+
+    // Prompt rendering only, from a prepared aggregation
+    @Benchmark
+    public String createSmartPrompt() {
+        return controller.createSmartPrompt(aggregation, query, type);
+    }
+
+    // Prompt over every row: the single aggregation pass at full input size
+    @Benchmark
+    public String createSmartPromptAllRows() {
+        return controller.createSmartPrompt(ExpenseAggregation.of(expenses, AiController.PROMPT_TOP_K), query, type);
+    }
+
+    // Baseline: the previous multi-pass implementation (groupingBy per dimension, full sorts, String.format)
+    @Benchmark
+    public String legacySmartPromptAllRows() {
+        return legacySmartPrompt(expenses, query, type);
+    }
+
+    @Benchmark
+    public ExpenseAggregation aggregate() {
+        return ExpenseAggregation.of(expenses, AiController.PROMPT_TOP_K);
+    }
+
+    static String legacySmartPrompt(List<Expense> expenses, String userQuery, AiController.QueryType queryType) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("Analyze my expense data and answer: ").append(userQuery).append("\n\n");
+        double totalAmount = expenses.stream().mapToDouble(Expense::getAmount).sum();
+        long totalCount = expenses.size();
+        prompt.append("EXPENSE SUMMARY:\n");
+        prompt.append(String.format("Total: $%.2f | Count: %d | Average: $%.2f\n",
+                totalAmount, totalCount, totalAmount / totalCount));
+        Map<String, Double> categoryTotals = expenses.stream()
+                .collect(Collectors.groupingBy(Expense::getCategory, Collectors.summingDouble(Expense::getAmount)));
+        prompt.append("\nCATEGORY BREAKDOWN:\n");
+        categoryTotals.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(10)
+                .forEach(entry -> prompt.append(String.format("- %s: $%.2f (%.1f%%)\n",
+                        entry.getKey(), entry.getValue(), entry.getValue() / totalAmount * 100)));
+        if (queryType == AiController.QueryType.SPENDING_TRENDS || queryType == AiController.QueryType.GENERAL) {
+            Map<String, Double> monthlyTotals = expenses.stream()
+                    .collect(Collectors.groupingBy(e -> YearMonth.from(e.getDate()).toString(),
+                            Collectors.summingDouble(Expense::getAmount)));
+            prompt.append("\nMONTHLY TRENDS:\n");
+            monthlyTotals.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> prompt.append(String.format("- %s: $%.2f\n", entry.getKey(), entry.getValue())));
+        }
+        prompt.append("\nTOP EXPENSES:\n");
+        expenses.stream()
+                .sorted((a, b) -> Double.compare(b.getAmount(), a.getAmount()))
+                .limit(10)
+                .forEach(e -> prompt.append(String.format("- %s: $%.2f (%s) [%s]\n",
+                        e.getDescription(), e.getAmount(), e.getCategory(), e.getDate())));
+        return prompt.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package com.ritesh.expensetracker.service.AI;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Per-call client overhead against a local stub that answers immediately, so only connection
+// handling and (de)serialization are measured. Loopback has no TLS, so real savings are larger.
+// - pooledClient: DeepSeekClient (pooled keep-alive connections, body serialized once)
+// - previousClient: the former path (HttpURLConnection factory, body serialized twice, String response)
+// - newConnectionPerCall: the former path with "Connection: close", i.e. a TCP handshake per call
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class DeepSeekClientBenchmark {
+
+    private static final String RESPONSE = "{\"choices\":[{\"message\":{\"content\":\"Spend less on food.\"}}]}";
+    private static final String PROMPT = "Analyze my expense data and answer: where can I save?\n\n" + "- Food: $120.50\n".repeat(100);
+
+    private HttpServer server;
+    private String url;
+    private DeepSeekClient pooledClient;
+    private RestTemplate previousClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/chat/completions";
+
+        pooledClient = new DeepSeekClient(url, "bench-key", 5, 5, 20, 60, 600);
+        previousClient = new RestTemplate(new SimpleClientHttpRequestFactory());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pooledClient.close();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public String pooledClient() throws IOException {
+        return pooledClient.complete(PROMPT);
+    }
+
+    @Benchmark
+    public String previousClient() throws IOException {
+        return callLikeBefore(false);
+    }
+
+    @Benchmark
+    public String newConnectionPerCall() throws IOException {
+        return callLikeBefore(true);
+    }
+
+    private String callLikeBefore(boolean closeConnection) throws IOException {
+        HttpHeaders headers = pooledClient.createHeaders();
+        if (closeConnection) {
+            headers.setConnection("close");
+        }
+        Map<String, Object> requestBody = pooledClient.buildRequestBody(PROMPT, false);
+        // The old code serialized the body once just to log its size
+        int size = objectMapper.writeValueAsString(requestBody).length();
+        ResponseEntity<String> response = previousClient.exchange(url, HttpMethod.POST,
+                new HttpEntity<>(requestBody, headers), String.class);
+        return objectMapper.readTree(response.getBody()).path("choices").get(0).path("message").path("content").asText()
+                + size;
+    }
+}
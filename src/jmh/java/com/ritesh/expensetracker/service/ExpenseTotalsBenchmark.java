@@ -0,0 +1,115 @@
+package com.ritesh.expensetracker.service;
+
+import com.ritesh.expensetracker.benchmark.SyntheticExpenses;
+import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.repository.ExpenseMonthlyRollupRepository;
+import com.ritesh.expensetracker.repository.ExpenseRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Totals and analytics over synthetic datasets.
+// legacyStream* reproduce the old findAll().stream() implementation as a baseline;
+// service* go through ExpenseService backed by the columnar store; rollup* read ExpenseRollupService.
+// Every row belongs to one user, so the per-user scans cover the whole dataset.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class ExpenseTotalsBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private List<Expense> expenses;
+    private ExpenseService expenseService;
+    private ExpenseRollupService rollupService;
+
+    private static final Long USER_ID = SyntheticExpenses.USER_ID;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        expenses = SyntheticExpenses.generate(rows);
+        ExpenseChangeEvent loadEvent = ExpenseChangeEvent.created(expenses);
+
+        ColumnarExpenseStore store = new ColumnarExpenseStore();
+        ReflectionTestUtils.setField(store, "parallelThreshold", 1_000_000);
+        store.onExpenseChange(loadEvent);
+        ReflectionTestUtils.setField(store, "loaded", true);
+
+        expenseService = new ExpenseService();
+        ReflectionTestUtils.setField(expenseService, "columnarExpenseStore", store);
+
+        // Load the user's rollups empty (every GROUP BY returns no rows, outside any real transaction),
+        // then apply the dataset as deltas
+        rollupService = new ExpenseRollupService(1, 60);
+        ReflectionTestUtils.setField(rollupService, "expenseRepository", emptyProxy(ExpenseRepository.class));
+        ReflectionTestUtils.setField(rollupService, "expenseMonthlyRollupRepository",
+                emptyProxy(ExpenseMonthlyRollupRepository.class));
+        ReflectionTestUtils.setField(rollupService, "snapshotTemplate", new TransactionTemplate(
+                (PlatformTransactionManager) Proxy.newProxyInstance(PlatformTransactionManager.class.getClassLoader(),
+                        new Class<?>[] {PlatformTransactionManager.class},
+                        (proxy, method, args) -> method.getName().equals("getTransaction") ? new SimpleTransactionStatus() : null)));
+        rollupService.getVersion(USER_ID);
+        rollupService.onExpenseChange(loadEvent);
+    }
+
+    // Repository whose queries all return no rows
+    private static Object emptyProxy(Class<?> repository) {
+        return Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[] {repository},
+                (proxy, method, args) -> List.of());
+    }
+
+    @Benchmark
+    public double legacyStreamTotal() {
+        return expenses.stream().mapToDouble(Expense::getAmount).sum();
+    }
+
+    @Benchmark
+    public double legacyStreamTotalByCategory() {
+        return expenses.stream()
+                .filter(expense -> expense.getCategory().equals("Food"))
+                .mapToDouble(Expense::getAmount)
+                .sum();
+    }
+
+    @Benchmark
+    public double serviceTotal() {
+        return expenseService.getTotalExpenses(USER_ID);
+    }
+
+    @Benchmark
+    public double serviceTotalByCategory() {
+        return expenseService.getTotalExpensesByCategory(USER_ID, "Food");
+    }
+
+    @Benchmark
+    public Map<String, Double> serviceTotalsForAllCategories() {
+        return expenseService.getTotalsByCategory(USER_ID, List.of());
+    }
+
+    @Benchmark
+    public Map<String, Object> rollupAnalytics() {
+        return rollupService.getAnalytics(USER_ID);
+    }
+}
@@ -2,10 +2,12 @@ package com.ritesh.expensetracker;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = { 
     org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration.class
 })
+@EnableScheduling
 public class ExpenseTrackerApiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,121 @@
+package com.ritesh.expensetracker.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Single-value cache with stale-while-revalidate semantics.
+// - Only one load runs at a time; concurrent callers share it (single flight).
+// - Once a value exists, get() never blocks: an expired value is returned while a
+//   reload runs in the background on the given executor.
+// - Only the very first read waits for the load, unless the caller knows the value is out of
+//   date and asks for reload(), which loads in the calling thread and waits.
+// - Values are published as immutable snapshots through an AtomicReference, so readers
+//   always see a fully built value. The loader must return a value that is not modified later.
+public class RefreshingCache<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshingCache.class);
+
+    private final String name;
+    private final Supplier<T> loader;
+    private final Duration ttl;
+    private final Executor executor;
+
+    private final AtomicReference<Snapshot<T>> snapshot = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<T>> inFlight = new AtomicReference<>();
+
+    public RefreshingCache(String name, Supplier<T> loader, Duration ttl, Executor executor) {
+        this.name = name;
+        this.loader = loader;
+        this.ttl = ttl;
+        this.executor = executor;
+    }
+
+    // Current value; starts a background reload when it has expired
+    public T get() {
+        Snapshot<T> current = snapshot.get();
+        if (current == null) {
+            return reload();
+        }
+        if (current.loadedAt.plus(ttl).isBefore(Instant.now())) {
+            refresh();
+        }
+        return current.value;
+    }
+
+    // Start a reload unless one is already running; never blocks
+    public CompletableFuture<T> refresh() {
+        return startLoad(executor);
+    }
+
+    // Load now in the calling thread and return the new value. A load already running is joined
+    // instead; it may have started before whatever made the caller ask.
+    public T reload() {
+        return startLoad(Runnable::run).join();
+    }
+
+    // Current value without starting a reload, or null if nothing has been loaded yet
+    public T peek() {
+        Snapshot<T> current = snapshot.get();
+        return current == null ? null : current.value;
+    }
+
+    // Age of the current value, or null if nothing has been loaded yet
+    public Duration getAge() {
+        Snapshot<T> current = snapshot.get();
+        return current == null ? null : Duration.between(current.loadedAt, Instant.now());
+    }
+
+    public boolean isRefreshing() {
+        return inFlight.get() != null;
+    }
+
+    private CompletableFuture<T> startLoad(Executor runner) {
+        while (true) {
+            CompletableFuture<T> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<T> load = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, load)) {
+                runner.execute(() -> runLoad(load));
+                return load;
+            }
+        }
+    }
+
+    // The load is cleared from inFlight before it completes, so a caller woken by it that reloads
+    // again starts a new load instead of joining the finished one
+    private void runLoad(CompletableFuture<T> load) {
+        long startTime = System.currentTimeMillis();
+        T value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException e) {
+            logger.error("Cache '{}' reload failed, keeping previous value", name, e);
+            inFlight.compareAndSet(load, null);
+            load.completeExceptionally(e);
+            return;
+        }
+        snapshot.set(new Snapshot<>(value, Instant.now()));
+        logger.debug("Cache '{}' reloaded in {} ms", name, System.currentTimeMillis() - startTime);
+        inFlight.compareAndSet(load, null);
+        load.complete(value);
+    }
+
+    private static final class Snapshot<T> {
+        private final T value;
+        private final Instant loadedAt;
+
+        private Snapshot(T value, Instant loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
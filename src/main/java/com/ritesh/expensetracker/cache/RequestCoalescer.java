@@ -0,0 +1,69 @@
+package com.ritesh.expensetracker.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Lets concurrent identical requests share one in-flight call.
+// - The first caller for a key starts the call; callers arriving while it runs join it.
+// - The result or failure (including timeouts) reaches every caller.
+// - The key is released just before completion, so a request that arrives later starts a new call.
+// - Each caller receives its own copy of the future, so one caller cancelling or timing out
+//   does not affect the others.
+public class RequestCoalescer<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private final String name;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+
+    public RequestCoalescer(String name) {
+        this.name = name;
+    }
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, shared);
+        if (running != null) {
+            joined.increment();
+            logger.debug("'{}': joined in-flight call ({} in flight)", name, inFlight.size());
+            return running.copy();
+        }
+
+        calls.increment();
+        try {
+            call.get().whenComplete((value, failure) -> {
+                inFlight.remove(key, shared);
+                if (failure != null) {
+                    shared.completeExceptionally(failure);
+                } else {
+                    shared.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(e);
+        }
+        return shared.copy();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    // Calls actually started
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    // Requests served by joining another request's call
+    public long getJoined() {
+        return joined.sum();
+    }
+}
@@ -0,0 +1,34 @@
+package com.ritesh.expensetracker.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String EXPENSE_BY_ID = "expenseById";
+    public static final String CATEGORY_TOTALS = "categoryTotals";
+
+    // Bounded Caffeine (W-TinyLFU) caches with statistics; entries are also evicted on writes
+    @Bean
+    public CacheManager cacheManager(@Value("${expenses.cache.max-size:10000}") long maxSize,
+                                     @Value("${expenses.cache.ttl-seconds:300}") long ttlSeconds) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats());
+        cacheManager.setCacheNames(List.of(EXPENSE_BY_ID, CATEGORY_TOTALS));
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ritesh.expensetracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Read/write split between the primary database and a read replica, each with its own Hikari pool.
+// Only active when spring.datasource.replica.jdbc-url is set; otherwise Boot's single DataSource is used.
+// - Read-only transactions (@Transactional(readOnly = true)) run on the replica.
+// - Everything else runs on the primary: read-write transactions, statements outside a transaction,
+//   and read-only calls joining an enclosing read-write transaction.
+// The choice is made when a transaction runs its first statement, so a transaction never spans both.
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.replica.jdbc-url")
+public class DataSourceRoutingConfig {
+
+    // spring.datasource.url/username/password plus the spring.datasource.hikari.* pool settings
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    // spring.datasource.replica.jdbc-url/username/password/maximum-pool-size/... (Hikari property names)
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    // The DataSource used by JPA, JdbcTemplate and the transaction manager
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") HikariDataSource replicaDataSource) {
+        return routingDataSource(primaryDataSource, replicaDataSource);
+    }
+
+    // The transaction manager marks the connection read-only before any statement runs; the proxy
+    // then takes the physical connection from the replica pool instead of the primary one
+    public static DataSource routingDataSource(DataSource primary, DataSource replica) {
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(replica);
+        return routing;
+    }
+}
@@ -1,34 +1,60 @@
 package com.ritesh.expensetracker.controller.AI;
 
+import static com.ritesh.expensetracker.service.AI.PromptText.appendAmount;
+import static com.ritesh.expensetracker.service.AI.PromptText.appendExpenseRow;
+import static com.ritesh.expensetracker.service.AI.PromptText.appendPercent;
+
+import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ritesh.expensetracker.cache.RefreshingCache;
+import com.ritesh.expensetracker.cache.RequestCoalescer;
 import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.service.AI.AiBulkhead;
+import com.ritesh.expensetracker.service.AI.AiCircuitBreaker;
+import com.ritesh.expensetracker.service.AI.AiResponseCache;
+import com.ritesh.expensetracker.service.AI.DeepSeekClient;
+import com.ritesh.expensetracker.service.AI.ExpenseAggregation;
+import com.ritesh.expensetracker.service.AI.FallbackInsightGenerator;
+import com.ritesh.expensetracker.service.AI.PromptAssembler;
+import com.ritesh.expensetracker.service.ExpenseRollupService;
 import com.ritesh.expensetracker.service.ExpenseService;
 
 @RestController
@@ -38,12 +64,6 @@ public class AiController {
 
     private static final Logger logger = LoggerFactory.getLogger(AiController.class);
     
-    private RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper;
-
-    @Value("${deepseek.api.key}")
-    private String deepSeekApiKey;
-
     @Value("${deepseek.api.url}")
     private String deepSeekApiUrl;
 
@@ -53,117 +73,176 @@ public class AiController {
     @Value("${deepseek.api.timeout.read:120}")
     private int readTimeoutSeconds;
 
-    // Simple cache for analytics
-    private Map<String, Object> cachedAnalytics;
-    private LocalDateTime lastCacheUpdate;
-    private static final int CACHE_MINUTES = 10;
+    @Value("${ai.prompt.token-budget:700}")
+    private int promptTokenBudget;
 
-    public AiController() {
-        this.objectMapper = new ObjectMapper();
-    }
+    @Value("${analytics.cache.ttl-seconds:600}")
+    private long analyticsCacheTtlSeconds;
+
+    // Snapshots are only worth keeping while the user's rollups are held, so they share its bounds
+    @Value("${analytics.rollup.max-users:10000}")
+    private long analyticsCacheMaxUsers;
+
+    @Value("${analytics.rollup.idle-minutes:60}")
+    private long analyticsCacheIdleMinutes;
+
+    // Analytics snapshot per user, rebuilt in the background whenever their rollups change or the TTL expires
+    private Cache<Long, UserAnalytics> analyticsCaches;
+    private final Executor analyticsExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Rows listed in a prompt: the largest and the most recent PROMPT_TOP_K expenses
+    static final int PROMPT_TOP_K = 15;
+
+    // Upstream calls in flight, keyed by the final prompt text
+    private final RequestCoalescer<String, String> upstreamCalls = new RequestCoalescer<>("deepseek");
 
     @Autowired
     private ExpenseService expenseService;
 
-    // Initialize RestTemplate with configurable timeouts after Spring injection
+    @Autowired
+    private ExpenseRollupService expenseRollupService;
+
+    @Autowired
+    private AiBulkhead aiBulkhead;
+
+    @Autowired
+    private DeepSeekClient deepSeekClient;
+
+    @Autowired
+    private AiResponseCache aiResponseCache;
+
+    @Autowired
+    private AiCircuitBreaker aiCircuitBreaker;
+
+    @Autowired
+    private FallbackInsightGenerator fallbackInsightGenerator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @jakarta.annotation.PostConstruct
-    private void initializeRestTemplate() {
-        logger.info("Configuring RestTemplate with timeouts: connect={}s, read={}s", 
-                   connectTimeoutSeconds, readTimeoutSeconds);
-        this.restTemplate = new RestTemplateBuilder()
-                .setConnectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
-                .setReadTimeout(Duration.ofSeconds(readTimeoutSeconds))
+    private void initializeAnalyticsCache() {
+        this.analyticsCaches = Caffeine.newBuilder()
+                .maximumSize(analyticsCacheMaxUsers)
+                .expireAfterAccess(Duration.ofMinutes(analyticsCacheIdleMinutes))
                 .build();
+        registerGauges();
     }
 
-    @PostMapping("/quickInsight")
-    public ResponseEntity<String> getQuickInsights(@RequestBody String entity) {
-        try {
-            logger.info("Processing quick AI insight request: {}", entity);
-            
-            // Get cached analytics for faster response
-            Map<String, Object> analytics = getCachedAnalytics();
-            
-            // Create lightweight prompt using aggregated data
-            String prompt = createQuickPrompt(analytics, entity);
-            logger.debug("Created quick prompt with length: {}", prompt.length());
+    // Saturation gauges for the analytics snapshot and the AI call path. Request latencies come from
+    // http.server.requests (every endpoint), expense.service and ai.upstream.requests.
+    private void registerGauges() {
+        TimeGauge.builder("analytics.cache.age", analyticsCaches, TimeUnit.MILLISECONDS, caches ->
+                        caches.asMap().values().stream()
+                                .map(user -> user.snapshot.getAge())
+                                .filter(age -> age != null)
+                                .mapToLong(Duration::toMillis)
+                                .max()
+                                .orElse(0))
+                .description("Age of the oldest cached analytics snapshot")
+                .register(meterRegistry);
+        Gauge.builder("analytics.cache.size", analyticsCaches, Cache::estimatedSize)
+                .description("Users with a cached analytics snapshot")
+                .register(meterRegistry);
+        Gauge.builder("analytics.rollup.users", expenseRollupService, ExpenseRollupService::getLoadedUsers)
+                .description("Users whose expense rollups are held in memory")
+                .register(meterRegistry);
+        Gauge.builder("ai.bulkhead.running", aiBulkhead, AiBulkhead::getRunning).register(meterRegistry);
+        Gauge.builder("ai.bulkhead.queued", aiBulkhead, AiBulkhead::getQueued).register(meterRegistry);
+        Gauge.builder("ai.upstream.in-flight", upstreamCalls, RequestCoalescer::getInFlight).register(meterRegistry);
+        Gauge.builder("ai.upstream.pool.leased", deepSeekClient, client -> (Integer) client.getPoolStatistics().get("leased"))
+                .register(meterRegistry);
+        Gauge.builder("ai.upstream.pool.pending", deepSeekClient, client -> (Integer) client.getPoolStatistics().get("pending"))
+                .register(meterRegistry);
+        Gauge.builder("ai.circuit-breaker.open", aiCircuitBreaker, breaker -> breaker.isOpen() ? 1 : 0)
+                .description("1 while AI calls are rejected and fallback insights are served")
+                .register(meterRegistry);
+    }
 
-            // Call API with smaller payload
-            String aiResponse = callDeepSeekApi(prompt);
-            logger.info("Successfully received quick AI response");
+    // AI endpoints run on the AiBulkhead's virtual threads; the Tomcat thread is released immediately
+    @PostMapping("/quickInsight")
+    public CompletableFuture<ResponseEntity<String>> getQuickInsights(@RequestHeader("X-User-Id") Long userId,
+                                                                      @RequestBody String entity) {
+        // Repeated questions are answered from the response cache without touching the bulkhead
+        String cacheKey = quickCacheKey(userId, entity);
+        Optional<String> cached = aiResponseCache.get(cacheKey);
+        if (cached.isPresent()) {
+            logger.info("Serving quick AI insight from cache");
+            return CompletableFuture.completedFuture(ResponseEntity.ok(cached.get()));
+        }
+        if (aiCircuitBreaker.isOpen()) {
+            return CompletableFuture.completedFuture(fallbackResponse(userId, entity));
+        }
+        return aiBulkhead.submit(() -> buildQuickPrompt(userId, entity))
+                .thenCompose(prompt -> completeCoalesced(prompt, cacheKey))
+                .thenApply(aiResponse -> {
+                    logger.info("Successfully received quick AI response");
+                    return ResponseEntity.ok(aiResponse);
+                })
+                .exceptionally(throwable -> handleFailure(throwable, userId, entity, "quick insights"));
+    }
 
-            return ResponseEntity.ok(aiResponse);
+    // Same as /quickInsight, but the answer is streamed to the client as server-sent events
+    @PostMapping(value = "/quickInsight/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamQuickInsights(@RequestHeader("X-User-Id") Long userId, @RequestBody String entity) {
+        return streamInsight(userId, entity, quickCacheKey(userId, entity), () -> buildQuickPrompt(userId, entity));
+    }
 
-        } catch (Exception e) {
-            logger.error("Error generating quick AI insights", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error generating quick insights: " + e.getMessage());
-        }
+    private String quickCacheKey(Long userId, String entity) {
+        return aiResponseCache.key(userId, "quickInsight", "QUICK", entity);
     }
 
-    private Map<String, Object> getCachedAnalytics() {
-        // Simple in-memory cache implementation
-        if (cachedAnalytics == null || shouldRefreshCache()) {
-            refreshAnalyticsCache();
-        }
-        return cachedAnalytics != null ? cachedAnalytics : new HashMap<>();
+    private String buildQuickPrompt(Long userId, String entity) {
+        logger.info("Processing quick AI insight request: {}", entity);
+
+        // Get cached analytics for faster response
+        Map<String, Object> analytics = getCachedAnalytics(userId);
+
+        // Create lightweight prompt using aggregated data
+        String prompt = createQuickPrompt(analytics, entity);
+        logger.debug("Created quick prompt with length: {}", prompt.length());
+        return prompt;
     }
 
-    private boolean shouldRefreshCache() {
-        return lastCacheUpdate == null || 
-               lastCacheUpdate.plusMinutes(CACHE_MINUTES).isBefore(LocalDateTime.now());
+    private Map<String, Object> getCachedAnalytics(Long userId) {
+        UserAnalytics user = analyticsCaches.get(userId, UserAnalytics::new);
+        // After a change the snapshot is reloaded before answering (O(categories)), so a read that
+        // follows a write sees it. Only a snapshot that merely expired is served while it reloads.
+        long version = expenseRollupService.getVersion(userId);
+        if (user.rollupVersion != version) {
+            Map<String, Object> analytics = user.snapshot.reload();
+            // the load joined may have started before the change
+            return user.rollupVersion == version ? analytics : user.snapshot.reload();
+        }
+        return user.snapshot.get();
     }
 
-    private void refreshAnalyticsCache() {
+    // Analytics come from the incrementally maintained rollups, so this is O(categories)
+    private Map<String, Object> loadAnalytics(Long userId, UserAnalytics user) {
         try {
-            List<Expense> allExpenses = expenseService.getAllExpenses();
-            cachedAnalytics = generateAnalyticsSummary(allExpenses);
-            lastCacheUpdate = LocalDateTime.now();
-            logger.info("Analytics cache refreshed with {} expenses", allExpenses.size());
+            long version = expenseRollupService.getVersion(userId);
+            Map<String, Object> analytics = new HashMap<>(expenseRollupService.getAnalytics(userId));
+            analytics.computeIfPresent("categoryTotals", (key, totals) -> Map.copyOf((Map<?, ?>) totals));
+            user.rollupVersion = version;
+            logger.debug("Analytics cache refreshed from rollups for user {} (version {})", userId, version);
+            return Map.copyOf(analytics);
         } catch (Exception e) {
-            logger.error("Failed to refresh analytics cache", e);
-            cachedAnalytics = new HashMap<>();
+            logger.error("Failed to refresh analytics cache for user {}", userId, e);
+            return Map.of();
         }
     }
 
-    private Map<String, Object> generateAnalyticsSummary(List<Expense> expenses) {
-        Map<String, Object> analytics = new HashMap<>();
-        
-        if (expenses.isEmpty()) {
-            return analytics;
-        }
-
-        double totalAmount = expenses.stream().mapToDouble(Expense::getAmount).sum();
-        analytics.put("totalAmount", totalAmount);
-        analytics.put("totalCount", expenses.size());
-        analytics.put("averageAmount", totalAmount / expenses.size());
-
-        // Category breakdown (top 10)
-        Map<String, Double> categoryTotals = expenses.stream()
-            .collect(Collectors.groupingBy(
-                Expense::getCategory,
-                Collectors.summingDouble(Expense::getAmount)
-            ));
-        analytics.put("categoryTotals", categoryTotals);
-
-        // Recent month trend
-        LocalDate oneMonthAgo = LocalDate.now().minusMonths(1);
-        double recentTotal = expenses.stream()
-            .filter(e -> {
-                try {
-                    return LocalDate.parse(e.getDate()).isAfter(oneMonthAgo);
-                } catch (DateTimeParseException ex) {
-                    return false;
-                }
-            })
-            .mapToDouble(Expense::getAmount)
-            .sum();
-        analytics.put("recentMonthTotal", recentTotal);
+    private final class UserAnalytics {
+        final RefreshingCache<Map<String, Object>> snapshot;
+        volatile long rollupVersion = -1;
 
-        return analytics;
+        UserAnalytics(Long userId) {
+            this.snapshot = new RefreshingCache<>("analytics", () -> loadAnalytics(userId, this),
+                    Duration.ofSeconds(analyticsCacheTtlSeconds), analyticsExecutor);
+        }
     }
 
-    private String createQuickPrompt(Map<String, Object> analytics, String userQuery) {
+    String createQuickPrompt(Map<String, Object> analytics, String userQuery) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("Based on my expense summary, answer: ").append(userQuery).append("\n\n");
         
@@ -173,10 +252,13 @@ public class AiController {
         }
 
         prompt.append("EXPENSE OVERVIEW:\n");
-        prompt.append(String.format("Total Spent: $%.2f\n", (Double) analytics.getOrDefault("totalAmount", 0.0)));
-        prompt.append(String.format("Total Transactions: %d\n", (Integer) analytics.getOrDefault("totalCount", 0)));
-        prompt.append(String.format("Average per Transaction: $%.2f\n", (Double) analytics.getOrDefault("averageAmount", 0.0)));
-        prompt.append(String.format("Recent Month: $%.2f\n", (Double) analytics.getOrDefault("recentMonthTotal", 0.0)));
+        prompt.append("Total Spent: $");
+        appendAmount(prompt, (Double) analytics.getOrDefault("totalAmount", 0.0)).append('\n');
+        prompt.append("Total Transactions: ").append((Integer) analytics.getOrDefault("totalCount", 0)).append('\n');
+        prompt.append("Average per Transaction: $");
+        appendAmount(prompt, (Double) analytics.getOrDefault("averageAmount", 0.0)).append('\n');
+        prompt.append("Recent Month: $");
+        appendAmount(prompt, (Double) analytics.getOrDefault("recentMonthTotal", 0.0)).append('\n');
 
         @SuppressWarnings("unchecked")
         Map<String, Double> categoryTotals = (Map<String, Double>) analytics.get("categoryTotals");
@@ -185,7 +267,7 @@ public class AiController {
             categoryTotals.entrySet().stream()
                 .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
                 .limit(8)
-                .forEach(entry -> prompt.append(String.format("- %s: $%.2f\n", entry.getKey(), entry.getValue())));
+                .forEach(entry -> appendAmount(prompt.append("- ").append(entry.getKey()).append(": $"), entry.getValue()).append('\n'));
         }
 
         prompt.append("\nProvide concise insights and recommendations.");
@@ -193,10 +275,13 @@ public class AiController {
     }
 
     @PostMapping("/refreshCache")
-    public ResponseEntity<String> refreshCache() {
+    public ResponseEntity<String> refreshCache(@RequestHeader("X-User-Id") Long userId) {
         try {
-            refreshAnalyticsCache();
-            return ResponseEntity.ok("Analytics cache refreshed successfully");
+            // Consistency check in the background: recompute the user's rollups, then reload their snapshot.
+            // Requests keep being served from the current snapshot meanwhile.
+            expenseRollupService.reconcileAsync(userId)
+                    .thenRun(() -> analyticsCaches.get(userId, UserAnalytics::new).snapshot.refresh());
+            return ResponseEntity.accepted().body("Analytics cache refresh started");
         } catch (Exception e) {
             logger.error("Failed to refresh cache", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -204,10 +289,28 @@ public class AiController {
         }
     }
 
+    // GET /api/ai/cache/stats - AI response cache size and hit rate
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getResponseCacheStats() {
+        return ResponseEntity.ok(aiResponseCache.getStatistics());
+    }
+
+    // GET /api/ai/upstream/stats - Upstream connection pool, circuit breaker and request coalescing counters
+    @GetMapping("/upstream/stats")
+    public ResponseEntity<Map<String, Object>> getUpstreamStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pool", deepSeekClient.getPoolStatistics());
+        stats.put("circuitBreaker", aiCircuitBreaker.getStatistics());
+        stats.put("inFlight", upstreamCalls.getInFlight());
+        stats.put("calls", upstreamCalls.getCalls());
+        stats.put("joined", upstreamCalls.getJoined());
+        return ResponseEntity.ok(stats);
+    }
+
     @GetMapping("/analytics")
-    public ResponseEntity<Map<String, Object>> getAnalytics() {
+    public ResponseEntity<Map<String, Object>> getAnalytics(@RequestHeader("X-User-Id") Long userId) {
         try {
-            Map<String, Object> analytics = getCachedAnalytics();
+            Map<String, Object> analytics = getCachedAnalytics(userId);
             return ResponseEntity.ok(analytics);
         } catch (Exception e) {
             logger.error("Failed to get analytics", e);
@@ -217,154 +320,268 @@ public class AiController {
     }
 
     // Enum for query types
-    private enum QueryType {
+    // (the enum and the prompt helpers below are package-private so the JMH benchmarks can reach them)
+    enum QueryType {
         SPENDING_TRENDS, CATEGORY_ANALYSIS, BUDGET_INSIGHTS, RECENT_ACTIVITY, GENERAL
     }
 
     @PostMapping("/aiInsight")
-    public ResponseEntity<String> getAiInsights(@RequestBody String entity) {
-        try {
-            logger.info("Processing AI insight request with query: {}", entity);
-            
-            // Get all expenses
-            List<Expense> allExpenses = expenseService.getAllExpenses();
-            logger.info("Retrieved {} expenses from database", allExpenses.size());
+    public CompletableFuture<ResponseEntity<String>> getAiInsights(@RequestHeader("X-User-Id") Long userId,
+                                                                   @RequestBody String entity) {
+        String cacheKey = insightCacheKey(userId, entity);
+        Optional<String> cached = aiResponseCache.get(cacheKey);
+        if (cached.isPresent()) {
+            logger.info("Serving AI insight from cache");
+            return CompletableFuture.completedFuture(ResponseEntity.ok(cached.get()));
+        }
+        if (aiCircuitBreaker.isOpen()) {
+            return CompletableFuture.completedFuture(fallbackResponse(userId, entity));
+        }
+        return aiBulkhead.submit(() -> buildInsightPrompt(userId, entity))
+                .thenCompose(prompt -> completeCoalesced(prompt, cacheKey))
+                .thenApply(aiResponse -> {
+                    logger.info("Successfully received AI response");
+                    return ResponseEntity.ok(aiResponse);
+                })
+                .exceptionally(throwable -> handleFailure(throwable, userId, entity, "AI insights"));
+    }
 
-            // Analyze query type and get relevant data
-            QueryType queryType = analyzeQueryType(entity);
-            List<Expense> relevantExpenses = getRelevantExpenses(entity, allExpenses, queryType);
-            logger.info("Filtered to {} relevant expenses", relevantExpenses.size());
+    // Same as /aiInsight, but the answer is streamed to the client as server-sent events
+    @PostMapping(value = "/aiInsight/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAiInsights(@RequestHeader("X-User-Id") Long userId, @RequestBody String entity) {
+        return streamInsight(userId, entity, insightCacheKey(userId, entity), () -> buildInsightPrompt(userId, entity));
+    }
 
-            // Create optimized prompt
-            String prompt = createSmartPrompt(relevantExpenses, entity, queryType);
-            logger.debug("Created optimized prompt with length: {}", prompt.length());
+    private String insightCacheKey(Long userId, String entity) {
+        return aiResponseCache.key(userId, "aiInsight", analyzeQueryType(entity).name(), entity);
+    }
 
-            // Call DeepSeek API
-            String aiResponse = callDeepSeekApi(prompt);
-            logger.info("Successfully received AI response");
+    private String buildInsightPrompt(Long userId, String entity) {
+        logger.info("Processing AI insight request with query: {}", entity);
+
+        // Analyze query type and load only the data it needs
+        QueryType queryType = analyzeQueryType(entity);
+        ExpenseAggregation relevantData = getRelevantData(userId, entity, queryType);
+        logger.info("Loaded {} relevant expenses in {} categories for {}",
+                relevantData.getCount(), relevantData.getCategoryCount(), queryType);
+
+        // Create optimized prompt
+        String prompt = createSmartPrompt(relevantData, entity, queryType);
+        logger.debug("Created optimized prompt with length: {}", prompt.length());
+        DistributionSummary.builder("ai.prompt.tokens")
+                .description("Estimated tokens per /aiInsight prompt")
+                .tag("queryType", queryType.name())
+                .register(meterRegistry)
+                .record(PromptAssembler.estimateTokens(prompt));
+        return prompt;
+    }
 
-            return ResponseEntity.ok(aiResponse);
+    // Identical prompts that are in flight at the same time share one upstream call. The prompt is
+    // built in its own bulkhead task and the call takes a new slot, so joiners hold no slot while they wait.
+    private CompletableFuture<String> completeCoalesced(String prompt, String cacheKey) {
+        return upstreamCalls.execute(prompt, () -> aiBulkhead.submit(() -> {
+            String aiResponse = aiCircuitBreaker.execute(() -> callDeepSeekApi(prompt));
+            aiResponseCache.put(cacheKey, aiResponse);
+            return aiResponse;
+        }));
+    }
 
-        } catch (HttpClientErrorException e) {
+    private ResponseEntity<String> handleFailure(Throwable throwable, Long userId, String entity, String what) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        if (AiCircuitBreaker.isNotPermitted(cause)) {
+            // The circuit opened while this request was queued
+            return fallbackResponse(userId, entity);
+        }
+        countError(errorType(cause));
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body("Service unavailable: " + cause.getMessage());
+        }
+        if (cause instanceof HttpClientErrorException e) {
             logger.error("HTTP Client Error: Status={}, Body={}", e.getStatusCode(), e.getResponseBodyAsString());
             return ResponseEntity.status(e.getStatusCode())
                     .body("API Error: " + e.getResponseBodyAsString());
-        } catch (RestClientException e) {
-            logger.error("REST Client Error: {}", e.getMessage(), e);
+        }
+        if (cause instanceof RestClientException) {
+            logger.error("REST Client Error: {}", cause.getMessage(), cause);
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                    .body("Service unavailable: " + e.getMessage());
-        } catch (Exception e) {
-            logger.error("Unexpected error generating AI insights", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error generating AI insights: " + e.getMessage());
+                    .body("Service unavailable: " + cause.getMessage());
+        }
+        logger.error("Unexpected error generating {}", what, cause);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Error generating " + what + ": " + cause.getMessage());
+    }
+
+    // Answer built locally from the analytics snapshot and monthly rollups while the upstream is unhealthy
+    private ResponseEntity<String> fallbackResponse(Long userId, String entity) {
+        logger.info("AI circuit breaker open, serving local fallback insight");
+        countError("circuit_open");
+        return ResponseEntity.ok()
+                .header("X-Insight-Source", "fallback")
+                .body(fallbackInsight(userId, entity));
+    }
+
+    private String fallbackInsight(Long userId, String entity) {
+        return fallbackInsightGenerator.generate(entity, getCachedAnalytics(userId),
+                expenseRollupService.getMonthlyTotals(userId), LocalDate.now());
+    }
+
+    // Streams "reasoning" and "content" events ({"text": ...}) as the model produces them, then a
+    // "done" event. Failures, including a full bulkhead, are reported as a final "error" event
+    // because the 200 status and headers have already been sent by then.
+    // A cached or fallback answer is sent as a single "content" event.
+    private SseEmitter streamInsight(Long userId, String entity, String cacheKey, Callable<String> promptBuilder) {
+        SseEmitter emitter = new SseEmitter(Duration.ofSeconds(connectTimeoutSeconds + readTimeoutSeconds).toMillis());
+        Optional<String> cached = aiResponseCache.get(cacheKey);
+        if (cached.isPresent()) {
+            sendSingleAnswer(emitter, cached.get(), "cached");
+            return emitter;
+        }
+        if (aiCircuitBreaker.isOpen()) {
+            countError("circuit_open");
+            sendSingleAnswer(emitter, fallbackInsight(userId, entity), "fallback");
+            return emitter;
+        }
+
+        aiBulkhead.submit(() -> {
+            String prompt = promptBuilder.call();
+            long startTime = System.currentTimeMillis();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicBoolean firstDelta = new AtomicBoolean(true);
+            StringBuilder content = new StringBuilder();
+            StringBuilder reasoning = new StringBuilder();
+
+            // The breaker's slow-call clock stops at the first token, not at the end of the stream
+            long permitNanos = aiCircuitBreaker.acquirePermission();
+            try {
+                deepSeekClient.streamCompletion(prompt, (type, text) -> {
+                    if (firstDelta.compareAndSet(true, false)) {
+                        aiCircuitBreaker.onSuccess(permitNanos);
+                        meterRegistry.timer("ai.upstream.first-token").record(System.currentTimeMillis() - startTime, TimeUnit.MILLISECONDS);
+                        logger.info("First streamed token after {} ms", System.currentTimeMillis() - startTime);
+                    }
+                    (type.equals("content") ? content : reasoning).append(text);
+                    emitter.send(SseEmitter.event().name(type).data(Map.of("text", text), MediaType.APPLICATION_JSON));
+                });
+                if (firstDelta.get()) {
+                    aiCircuitBreaker.onSuccess(permitNanos);
+                }
+            } catch (RuntimeException e) {
+                if (firstDelta.get()) {
+                    aiCircuitBreaker.onError(permitNanos, e);
+                }
+                sample.stop(upstreamTimer("stream", "error"));
+                throw e;
+            }
+            sample.stop(upstreamTimer("stream", "success"));
+            emitter.send(SseEmitter.event().name("done").data(Map.of("elapsedMs", System.currentTimeMillis() - startTime),
+                    MediaType.APPLICATION_JSON));
+            emitter.complete();
+
+            // Same fallback as the blocking call: use the reasoning when the model produced no content
+            String answer = !content.toString().isBlank() ? content.toString() : reasoning.toString();
+            if (!answer.isBlank()) {
+                aiResponseCache.put(cacheKey, answer);
+            }
+            return null;
+        }).exceptionally(throwable -> {
+            failStream(emitter, userId, entity, throwable);
+            return null;
+        });
+        return emitter;
+    }
+
+    private void sendSingleAnswer(SseEmitter emitter, String text, String source) {
+        try {
+            emitter.send(SseEmitter.event().name("content").data(Map.of("text", text), MediaType.APPLICATION_JSON));
+            emitter.send(SseEmitter.event().name("done").data(Map.of("elapsedMs", 0, "source", source), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void failStream(SseEmitter emitter, Long userId, String entity, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        if (AiCircuitBreaker.isNotPermitted(cause)) {
+            countError("circuit_open");
+            sendSingleAnswer(emitter, fallbackInsight(userId, entity), "fallback");
+            return;
+        }
+        countError(errorType(cause));
+        String message;
+        if (cause instanceof RejectedExecutionException) {
+            message = "Service unavailable: " + cause.getMessage();
+        } else if (cause instanceof HttpClientErrorException e) {
+            logger.error("HTTP Client Error: Status={}, Body={}", e.getStatusCode(), e.getResponseBodyAsString());
+            message = "API Error: " + e.getResponseBodyAsString();
+        } else {
+            logger.error("Error streaming AI insights", cause);
+            message = "Error generating AI insights: " + cause.getMessage();
+        }
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("message", message), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Client already disconnected
+            emitter.completeWithError(cause);
         }
     }
 
     private String callDeepSeekApi(String prompt) throws Exception {
         logger.info("Making optimized API call to DeepSeek: {}", deepSeekApiUrl);
         logger.debug("Prompt length: {} characters", prompt.length());
-        
-        // Create request headers
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(deepSeekApiKey);
-        
-        // Optional: OpenRouter specific headers
-        headers.set("HTTP-Referer", "http://localhost:8080");
-        headers.set("X-Title", "Expense Tracker AI");
-        
-        // Create optimized request body
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", "deepseek/deepseek-r1-0528:free");
-        requestBody.put("max_tokens", 800); // Reduced for faster response
-        requestBody.put("temperature", 0.7);
-        
-        // Create messages array
-        List<Map<String, String>> messages = new ArrayList<>();
-        Map<String, String> message = new HashMap<>();
-        message.put("role", "user");
-        message.put("content", prompt);
-        messages.add(message);
-        requestBody.put("messages", messages);
-        
-        logger.debug("Request body size: {} bytes", objectMapper.writeValueAsString(requestBody).length());
-        
-        // Create HTTP entity
-        HttpEntity<Map<String, Object>> httpEntity = new HttpEntity<>(requestBody, headers);
-        
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
-            logger.info("Starting API call with timeouts: connect={}s, read={}s", 
-                       connectTimeoutSeconds, readTimeoutSeconds);
-            long startTime = System.currentTimeMillis();
-            
-            // Make API call with extended timeout
-            ResponseEntity<String> response = restTemplate.exchange(
-                    deepSeekApiUrl,
-                    HttpMethod.POST,
-                    httpEntity,
-                    String.class
-            );
-            
-            long endTime = System.currentTimeMillis();
-            logger.info("API call completed in {} ms", (endTime - startTime));
-            logger.debug("API Response status: {}", response.getStatusCode());
-            logger.debug("API Response received, length: {}", 
-                        response.getBody() != null ? response.getBody().length() : 0);
-            
-            // Parse response to extract content
-            return extractContentFromResponse(response.getBody());
-            
+            String response = deepSeekClient.complete(prompt);
+            outcome = "success";
+            return response;
         } catch (HttpClientErrorException e) {
             logger.error("API call failed with status: {}, body: {}", e.getStatusCode(), e.getResponseBodyAsString());
             throw e;
         } catch (RestClientException e) {
             logger.error("REST Client Error (possible timeout): {}", e.getMessage(), e);
-            throw new Exception("API request failed - possibly due to timeout or connection issues: " + e.getMessage());
+            throw new Exception("API request failed - possibly due to timeout or connection issues: " + e.getMessage(), e);
+        } finally {
+            sample.stop(upstreamTimer("blocking", outcome));
         }
     }
 
-    private String extractContentFromResponse(String responseBody) throws Exception {
-        try {
-            JsonNode jsonNode = objectMapper.readTree(responseBody);
-            
-            // Check if response has the expected structure
-            if (!jsonNode.has("choices") || jsonNode.path("choices").isEmpty()) {
-                throw new Exception("Invalid response structure: missing choices array");
-            }
-            
-            JsonNode firstChoice = jsonNode.path("choices").get(0);
-            if (!firstChoice.has("message")) {
-                throw new Exception("Invalid response structure: missing message in choice");
-            }
-            
-            JsonNode messageNode = firstChoice.path("message");
-            
-            // Try to get content from the "content" field first
-            String content = messageNode.path("content").asText();
-            
-            // If content is empty, try to get it from the "reasoning" field (for deepseek-r1 models)
-            if (content == null || content.trim().isEmpty()) {
-                content = messageNode.path("reasoning").asText();
-                logger.debug("Content was empty, using reasoning field instead");
-            }
-            
-            // If still empty, throw an exception
-            if (content == null || content.trim().isEmpty()) {
-                logger.error("Both content and reasoning fields are empty in API response");
-                throw new Exception("Empty content in API response");
-            }
-            
-            logger.debug("Successfully extracted content with length: {}", content.length());
-            return content;
-            
-        } catch (Exception e) {
-            logger.error("Error parsing response: {}", responseBody, e);
-            throw new Exception("Failed to parse API response: " + e.getMessage());
+    // Latency of LLM calls, by mode (blocking/stream) and outcome (success/error), with a percentile histogram
+    private Timer upstreamTimer(String mode, String outcome) {
+        return Timer.builder("ai.upstream.requests")
+                .description("Calls to the AI upstream")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // AI requests that did not get a model answer, by cause
+    private void countError(String type) {
+        meterRegistry.counter("ai.errors", "type", type).increment();
+    }
+
+    private static String errorType(Throwable cause) {
+        if (cause instanceof RejectedExecutionException) {
+            return "bulkhead_rejected";
         }
+        if (cause instanceof HttpClientErrorException) {
+            return "upstream_client_error";
+        }
+        if (cause instanceof RestClientException || cause.getCause() instanceof RestClientException) {
+            return "upstream_unavailable";
+        }
+        return "unexpected";
     }
 
     // Analyze what type of query the user is asking
-    private QueryType analyzeQueryType(String query) {
+    QueryType analyzeQueryType(String query) {
         String q = query.toLowerCase();
         if (q.contains("trend") || q.contains("pattern") || q.contains("over time")) {
             return QueryType.SPENDING_TRENDS;
@@ -381,222 +598,155 @@ public class AiController {
         return QueryType.GENERAL;
     }
 
-    // Get relevant expenses based on query type and content
-    private List<Expense> getRelevantExpenses(String userQuery, List<Expense> allExpenses, QueryType queryType) {
+    // Load the data for a query type with targeted queries: GROUP BY aggregates for totals,
+    // category and month sums, plus ORDER BY ... LIMIT lookups for the few rows the prompt lists.
+    // At most 100 expense rows are loaded for any query type, however large the account.
+    ExpenseAggregation getRelevantData(Long userId, String userQuery, QueryType queryType) {
         String query = userQuery.toLowerCase();
         
         switch (queryType) {
             case RECENT_ACTIVITY:
-                return getRecentExpenses(allExpenses, query);
+                return aggregateSince(userId, getRecentCutoff(query), false);
             case CATEGORY_ANALYSIS:
-                return getCategorySpecificExpenses(allExpenses, query);
+                return getCategoryData(userId, query);
             case SPENDING_TRENDS:
-                return getTrendAnalysisExpenses(allExpenses);
+                // For trend analysis, use the last 3 months of data
+                return aggregateSince(userId, LocalDate.now().minusMonths(3).plusDays(1), true);
             case BUDGET_INSIGHTS:
-                return getBudgetRelevantExpenses(allExpenses);
+                return getBudgetData(userId);
             default:
-                // For general queries, return recent expenses limited to 50
-                return allExpenses.stream()
-                    .sorted((a, b) -> {
-                        try {
-                            return LocalDate.parse(b.getDate()).compareTo(LocalDate.parse(a.getDate()));
-                        } catch (DateTimeParseException e) {
-                            return b.getDate().compareTo(a.getDate());
-                        }
-                    })
-                    .limit(50)
-                    .collect(Collectors.toList());
-        }
-    }
-
-    private List<Expense> getRecentExpenses(List<Expense> allExpenses, String query) {
-        LocalDate cutoffDate;
+                // For general queries, use the 50 most recent expenses
+                return ExpenseAggregation.of(expenseService.getLatestExpenses(userId, 50), PROMPT_TOP_K);
+        }
+    }
+
+    private LocalDate getRecentCutoff(String query) {
         if (query.contains("today")) {
-            cutoffDate = LocalDate.now();
+            return LocalDate.now();
         } else if (query.contains("week")) {
-            cutoffDate = LocalDate.now().minusWeeks(1);
+            return LocalDate.now().minusWeeks(1);
         } else if (query.contains("month")) {
-            cutoffDate = LocalDate.now().minusMonths(1);
-        } else {
-            cutoffDate = LocalDate.now().minusWeeks(2); // Default to 2 weeks
+            return LocalDate.now().minusMonths(1);
         }
+        return LocalDate.now().minusWeeks(2); // Default to 2 weeks
+    }
 
-        return allExpenses.stream()
-            .filter(e -> {
-                try {
-                    return LocalDate.parse(e.getDate()).isAfter(cutoffDate) || 
-                           LocalDate.parse(e.getDate()).isEqual(cutoffDate);
-                } catch (DateTimeParseException ex) {
-                    return false;
-                }
-            })
-            .collect(Collectors.toList());
+    // Date windows are answered from idx_expenses_user_date
+    private ExpenseAggregation aggregateSince(Long userId, LocalDate from, boolean withMonths) {
+        return ExpenseAggregation.fromTotals(
+                expenseService.getCategoryTotalsSince(userId, from),
+                withMonths ? expenseService.getDailyTotalsSince(userId, from) : List.of(),
+                expenseService.getLargestExpensesSince(userId, from, PROMPT_TOP_K),
+                expenseService.getLatestExpensesSince(userId, from, PROMPT_TOP_K),
+                PROMPT_TOP_K);
     }
 
-    private List<Expense> getCategorySpecificExpenses(List<Expense> allExpenses, String query) {
+    private ExpenseAggregation getCategoryData(Long userId, String query) {
         // Extract category from query
-        String[] categories = {"food", "grocery", "transport", "entertainment", "utilities", "shopping", "health"};
+        String[] keywords = {"food", "grocery", "transport", "entertainment", "utilities", "shopping", "health"};
         
-        for (String category : categories) {
-            if (query.contains(category)) {
-                return allExpenses.stream()
-                    .filter(e -> e.getCategory().toLowerCase().contains(category))
-                    .collect(Collectors.toList());
+        for (String keyword : keywords) {
+            if (query.contains(keyword)) {
+                // Match the keyword against the (few) distinct category names, then query those categories
+                List<String> categories = expenseService.getCategories(userId).stream()
+                        .filter(category -> category.toLowerCase().contains(keyword))
+                        .toList();
+                if (categories.isEmpty()) {
+                    return ExpenseAggregation.of(List.of(), PROMPT_TOP_K);
+                }
+                return ExpenseAggregation.fromTotals(
+                        expenseService.getCategoryTotals(userId, categories),
+                        List.of(),
+                        expenseService.getLargestExpensesInCategories(userId, categories, PROMPT_TOP_K),
+                        expenseService.getLatestExpensesInCategories(userId, categories, PROMPT_TOP_K),
+                        PROMPT_TOP_K);
             }
         }
         
-        // If no specific category found, return all expenses limited to 100
-        return allExpenses.stream().limit(100).collect(Collectors.toList());
+        // If no specific category found, use the 100 most recent expenses
+        return ExpenseAggregation.of(expenseService.getLatestExpenses(userId, 100), PROMPT_TOP_K);
     }
 
-    private List<Expense> getTrendAnalysisExpenses(List<Expense> allExpenses) {
-        // For trend analysis, get last 3 months of data
-        LocalDate threeMonthsAgo = LocalDate.now().minusMonths(3);
-        
-        return allExpenses.stream()
-            .filter(e -> {
-                try {
-                    return LocalDate.parse(e.getDate()).isAfter(threeMonthsAgo);
-                } catch (DateTimeParseException ex) {
-                    return false;
-                }
-            })
-            .collect(Collectors.toList());
+    private ExpenseAggregation getBudgetData(Long userId) {
+        // For budget insights, focus on the last month plus the largest expenses overall
+        LocalDate from = LocalDate.now().minusMonths(1).plusDays(1);
+        List<Expense> largest = new ArrayList<>(expenseService.getLargestExpensesSince(userId, from, PROMPT_TOP_K));
+        largest.addAll(expenseService.getLargestExpenses(userId, 20));
+
+        return ExpenseAggregation.fromTotals(
+                expenseService.getCategoryTotalsSince(userId, from),
+                List.of(),
+                largest,
+                expenseService.getLatestExpensesSince(userId, from, PROMPT_TOP_K),
+                PROMPT_TOP_K);
     }
 
-    private List<Expense> getBudgetRelevantExpenses(List<Expense> allExpenses) {
-        // For budget insights, focus on high-value expenses and recent patterns
-        LocalDate oneMonthAgo = LocalDate.now().minusMonths(1);
-        
-        List<Expense> recentExpenses = allExpenses.stream()
-            .filter(e -> {
-                try {
-                    return LocalDate.parse(e.getDate()).isAfter(oneMonthAgo);
-                } catch (DateTimeParseException ex) {
-                    return false;
-                }
-            })
-            .collect(Collectors.toList());
-
-        // Also include top expenses for context (merge with recent)
-        Map<Long, Expense> combinedExpenses = new HashMap<>();
+    // Create optimized prompt with structured data, sized to ai.prompt.token-budget.
+    // The summary is always included; categories, then trends, then transactions share the
+    // rest of the budget (see PromptAssembler), and the prompt says what was left out.
+    // Transactions use a compact "date|amount|category|description" table.
+    String createSmartPrompt(ExpenseAggregation aggregation, String userQuery, QueryType queryType) {
+        PromptAssembler assembler = new PromptAssembler(promptTokenBudget);
+        StringBuilder head = assembler.head();
+        head.append("Analyze my expense data and answer: ").append(userQuery).append("\n\n");
         
-        // Add recent expenses
-        recentExpenses.forEach(e -> combinedExpenses.put(e.getId(), e));
-        
-        // Add top expenses
-        allExpenses.stream()
-            .sorted((a, b) -> Double.compare(b.getAmount(), a.getAmount()))
-            .limit(20)
-            .forEach(e -> combinedExpenses.put(e.getId(), e));
+        if (aggregation.getCount() == 0) {
+            head.append("No expense data available for the requested criteria.");
+            return head.toString();
+        }
 
-        return new ArrayList<>(combinedExpenses.values());
-    }
+        double totalAmount = aggregation.getTotal();
 
-    // Create optimized prompt with structured data
-    private String createSmartPrompt(List<Expense> expenses, String userQuery, QueryType queryType) {
-        StringBuilder prompt = new StringBuilder();
-        prompt.append("Analyze my expense data and answer: ").append(userQuery).append("\n\n");
-        
-        if (expenses.isEmpty()) {
-            prompt.append("No expense data available for the requested criteria.");
-            return prompt.toString();
+        // Add summary statistics
+        head.append("EXPENSE SUMMARY:\n");
+        head.append("Total: $");
+        appendAmount(head, totalAmount).append(" | Count: ").append(aggregation.getCount()).append(" | Average: $");
+        appendAmount(head, aggregation.getAverage()).append('\n');
+
+        // Category breakdown, top 10 categories
+        PromptAssembler.Section categories = assembler.section("CATEGORY BREAKDOWN", 1);
+        for (Map.Entry<String, Double> entry : aggregation.getTopCategories(10)) {
+            StringBuilder line = new StringBuilder(48).append("- ").append(entry.getKey()).append(": $");
+            appendAmount(line, entry.getValue()).append(" (");
+            appendPercent(line, entry.getValue() / totalAmount * 100).append("%)");
+            categories.line(line);
         }
 
-        // Add summary statistics
-        double totalAmount = expenses.stream().mapToDouble(Expense::getAmount).sum();
-        long totalCount = expenses.size();
-        double avgAmount = totalAmount / totalCount;
-        
-        prompt.append("EXPENSE SUMMARY:\n");
-        prompt.append(String.format("Total: $%.2f | Count: %d | Average: $%.2f\n", 
-                     totalAmount, totalCount, avgAmount));
-        
-        // Category breakdown
-        Map<String, Double> categoryTotals = expenses.stream()
-            .collect(Collectors.groupingBy(
-                Expense::getCategory,
-                Collectors.summingDouble(Expense::getAmount)
-            ));
-        
-        prompt.append("\nCATEGORY BREAKDOWN:\n");
-        categoryTotals.entrySet().stream()
-            .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-            .limit(10) // Top 10 categories
-            .forEach(entry -> {
-                double percentage = (entry.getValue() / totalAmount) * 100;
-                prompt.append(String.format("- %s: $%.2f (%.1f%%)\n", 
-                             entry.getKey(), entry.getValue(), percentage));
-            });
-        
-        // Add monthly trends for trend analysis
+        // Add monthly trends for trend analysis, most recent months first so cuts drop the oldest
         if (queryType == QueryType.SPENDING_TRENDS || queryType == QueryType.GENERAL) {
-            Map<String, Double> monthlyTotals = expenses.stream()
-                .collect(Collectors.groupingBy(
-                    expense -> {
-                        try {
-                            return LocalDate.parse(expense.getDate()).toString().substring(0, 7); // YYYY-MM
-                        } catch (DateTimeParseException e) {
-                            return expense.getDate().length() >= 7 ? expense.getDate().substring(0, 7) : "Unknown";
-                        }
-                    },
-                    Collectors.summingDouble(Expense::getAmount)
-                ));
-            
+            NavigableMap<YearMonth, Double> monthlyTotals = aggregation.getMonthlyTotals();
             if (monthlyTotals.size() > 1) {
-                prompt.append("\nMONTHLY TRENDS:\n");
-                monthlyTotals.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .forEach(entry -> prompt.append(String.format("- %s: $%.2f\n", 
-                                     entry.getKey(), entry.getValue())));
+                PromptAssembler.Section trends = assembler.section("MONTHLY TRENDS", 2);
+                for (Map.Entry<YearMonth, Double> entry : monthlyTotals.descendingMap().entrySet()) {
+                    StringBuilder line = new StringBuilder(24).append("- ").append(entry.getKey()).append(": $");
+                    trends.line(appendAmount(line, entry.getValue()));
+                }
             }
         }
-        
+
         // Include detailed transactions only if manageable count
-        if (expenses.size() <= 20) {
-            prompt.append("\nRECENT TRANSACTIONS:\n");
-            expenses.stream()
-                .sorted((a, b) -> {
-                    try {
-                        return LocalDate.parse(b.getDate()).compareTo(LocalDate.parse(a.getDate()));
-                    } catch (DateTimeParseException e) {
-                        return b.getDate().compareTo(a.getDate());
-                    }
-                })
-                .limit(15)
-                .forEach(expense -> 
-                    prompt.append(String.format("- %s: $%.2f (%s) [%s]\n", 
-                        expense.getDescription().length() > 30 ? 
-                            expense.getDescription().substring(0, 30) + "..." : expense.getDescription(),
-                        expense.getAmount(), 
-                        expense.getCategory(), 
-                        expense.getDate()))
-                );
+        List<Expense> transactions;
+        PromptAssembler.Section rows;
+        if (aggregation.getCount() <= 20) {
+            transactions = aggregation.getLatest();
+            rows = assembler.section("RECENT TRANSACTIONS", 3);
         } else {
             // For large datasets, show top expenses
-            prompt.append("\nTOP EXPENSES:\n");
-            expenses.stream()
-                .sorted((a, b) -> Double.compare(b.getAmount(), a.getAmount()))
-                .limit(10)
-                .forEach(expense -> 
-                    prompt.append(String.format("- %s: $%.2f (%s) [%s]\n", 
-                        expense.getDescription().length() > 30 ? 
-                            expense.getDescription().substring(0, 30) + "..." : expense.getDescription(),
-                        expense.getAmount(), 
-                        expense.getCategory(), 
-                        expense.getDate()))
-                );
+            List<Expense> largest = aggregation.getLargest();
+            transactions = largest.subList(0, Math.min(10, largest.size()));
+            rows = assembler.section("TOP EXPENSES", 3);
         }
-        
-        // Add specific guidance based on query type
-        prompt.append("\nPlease provide specific insights and actionable recommendations.");
-        
-        // Limit total prompt length to avoid API issues
-        String finalPrompt = prompt.toString();
-        if (finalPrompt.length() > 3000) {
-            finalPrompt = finalPrompt.substring(0, 3000) + "... [truncated]";
+        rows.columns("date|amount|category|description");
+        for (Expense expense : transactions) {
+            rows.line(appendExpenseRow(new StringBuilder(64), expense));
         }
         
-        return finalPrompt;
+        // Add specific guidance based on query type
+        assembler.footer().append("\nPlease provide specific insights and actionable recommendations.");
+
+        String prompt = assembler.assemble();
+        logger.info("Prompt size: {} chars, ~{} tokens (budget {}), {} rows omitted",
+                prompt.length(), assembler.getEstimatedTokens(), promptTokenBudget, assembler.getOmittedLines());
+        return prompt;
     }
-}
\ No newline at end of file
+}
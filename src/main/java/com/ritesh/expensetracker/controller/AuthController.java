@@ -1,7 +1,11 @@
 package com.ritesh.expensetracker.controller;
 
 
+import com.ritesh.expensetracker.model.BulkInsertResult;
+import com.ritesh.expensetracker.model.CursorPage;
+import com.ritesh.expensetracker.model.UserSummary;
 import com.ritesh.expensetracker.service.AuthService;
+import com.ritesh.expensetracker.service.UserBulkService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,20 +21,46 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private UserBulkService userBulkService;
+
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody Users user){
         try{
             Users registeredUser = authService.registerUser(user);
             return ResponseEntity.ok(registeredUser);
         } catch(IllegalArgumentException e){
-            return ResponseEntity.badRequest().body("Email Already Exists Bro");
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // POST /api/auth/register/batch - Register many users at once (migrations from the old system)
+    // Returns a per-item result so only the INVALID/FAILED entries need to be resubmitted
+    @PostMapping("/register/batch")
+    public ResponseEntity<?> registerUsers(@RequestBody List<Users> users){
+        try{
+            BulkInsertResult result = userBulkService.registerUsers(users);
+            if (result.getCreated() == 0 && result.getInvalid() > 0) {
+                return ResponseEntity.badRequest().body(result);
+            }
+            return ResponseEntity.ok(result);
+        } catch(IllegalArgumentException e){
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    // GET /api/auth/allUsers - List users (id, name, email) one page at a time, ordered by email
+    // Optional: ?cursor=&limit=&emailPrefix=
     @GetMapping("/allUsers")
-    public ResponseEntity<List<Users>> getAllUsers(){
-        List<Users> user = authService.getAllUsers();
-        return ResponseEntity.ok(user);
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String emailPrefix){
+        try{
+            CursorPage<UserSummary> page = authService.getUserPage(emailPrefix, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch(IllegalArgumentException e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/")
@@ -1,33 +1,88 @@
 package com.ritesh.expensetracker.controller;
 
+import com.ritesh.expensetracker.model.BulkInsertResult;
+import com.ritesh.expensetracker.model.CursorPage;
 import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.model.ExpenseFilter;
+import com.ritesh.expensetracker.service.ExpenseBulkService;
+import com.ritesh.expensetracker.service.ExpenseExportService;
+import com.ritesh.expensetracker.service.ExpenseReadCache;
 import com.ritesh.expensetracker.service.ExpenseService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
-import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/expenses")
 @CrossOrigin(origins = "*") // Allow requests from any origin
+// Every expense endpoint acts on the expenses of the user named by the X-User-Id header
+// (set by the authenticating gateway; the header itself is not checked, see README)
 public class ExpenseController {
 
     @Autowired
     private ExpenseService expenseService;
 
-    // GET /api/expenses - Get all expenses
+    @Autowired
+    private ExpenseExportService expenseExportService;
+
+    @Autowired
+    private ExpenseBulkService expenseBulkService;
+
+    @Autowired
+    private ExpenseReadCache expenseReadCache;
+
+    // GET /api/expenses - Get expenses one page at a time
+    // Optional: ?cursor=&limit=&category=&from=&to=&minAmount=&maxAmount=
+    // ?unpaged=true returns the whole table as a plain list (legacy behaviour)
     @GetMapping
-    public ResponseEntity<List<Expense>> getAllExpenses() {
-        List<Expense> expenses = expenseService.getAllExpenses();
-        return ResponseEntity.ok(expenses);
+    public ResponseEntity<?> getAllExpenses(@RequestHeader("X-User-Id") Long userId,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(defaultValue = "false") boolean unpaged,
+                                            ExpenseFilter filter) {
+        if (unpaged) {
+            List<Expense> expenses = expenseService.getAllExpenses(userId);
+            return ResponseEntity.ok(expenses);
+        }
+        try {
+            CursorPage<Expense> page = expenseService.getExpensePage(userId, filter, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // GET /api/expenses/export?format=ndjson|csv - Stream all of the user's expenses straight to the response
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportExpenses(@RequestHeader("X-User-Id") Long userId,
+                                                                @RequestParam(defaultValue = "ndjson") String format) {
+        ExpenseExportService.Format exportFormat;
+        try {
+            exportFormat = ExpenseExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean csv = exportFormat == ExpenseExportService.Format.CSV;
+        StreamingResponseBody body = outputStream -> expenseExportService.export(userId, exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"expenses." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
     }
 
     // GET /api/expenses/{id} - Get expense by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Expense> getExpenseById(@PathVariable Long id) {
-        Expense expense = expenseService.getExpenseById(id);
+    public ResponseEntity<Expense> getExpenseById(@RequestHeader("X-User-Id") Long userId, @PathVariable Long id) {
+        Expense expense = expenseService.getExpenseById(userId, id);
         if (expense == null) {
             return ResponseEntity.notFound().build();
         }
@@ -36,24 +91,26 @@ public class ExpenseController {
 
     // POST /api/expenses - Create new expense
     @PostMapping
-    public ResponseEntity<Expense> createExpense(@RequestBody Expense expense) {
+    public ResponseEntity<Expense> createExpense(@RequestHeader("X-User-Id") Long userId, @RequestBody Expense expense) {
         try {
-            Expense createdExpense = expenseService.createExpense(expense);
+            Expense createdExpense = expenseService.createExpense(userId, expense);
             return ResponseEntity.ok(createdExpense);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
-    // POST /api/expenses/bulk - Create multiple expenses
+    // POST /api/expenses/bulk - Create multiple expenses in JDBC batches
+    // Returns a per-item result so only the INVALID/FAILED entries need to be resubmitted
     @PostMapping("/bulk")
-    public ResponseEntity<List<Expense>> createExpenses(@RequestBody List<Expense> expenses) {
+    public ResponseEntity<BulkInsertResult> createExpenses(@RequestHeader("X-User-Id") Long userId,
+                                                           @RequestBody List<Expense> expenses) {
         try {
-            List<Expense> createdExpenses = new ArrayList<>();
-            for (Expense expense : expenses) {
-                createdExpenses.add(expenseService.createExpense(expense));
+            BulkInsertResult result = expenseBulkService.createExpenses(userId, expenses);
+            if (result.getCreated() == 0 && result.getInvalid() > 0) {
+                return ResponseEntity.badRequest().body(result);
             }
-            return ResponseEntity.ok(createdExpenses);
+            return ResponseEntity.ok(result);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -61,9 +118,10 @@ public class ExpenseController {
 
     // PUT /api/expenses/{id} - Update expense
     @PutMapping("/{id}")
-    public ResponseEntity<Expense> updateExpense(@PathVariable Long id, @RequestBody Expense expense) {
+    public ResponseEntity<Expense> updateExpense(@RequestHeader("X-User-Id") Long userId, @PathVariable Long id,
+                                                 @RequestBody Expense expense) {
         try {
-            Expense updatedExpense = expenseService.updateExpense(id, expense);
+            Expense updatedExpense = expenseService.updateExpense(userId, id, expense);
             return ResponseEntity.ok(updatedExpense);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -72,8 +130,8 @@ public class ExpenseController {
 
     // DELETE /api/expenses/{id} - Delete expense
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteExpense(@PathVariable Long id) {
-        boolean deleted = expenseService.deleteExpense(id);
+    public ResponseEntity<Void> deleteExpense(@RequestHeader("X-User-Id") Long userId, @PathVariable Long id) {
+        boolean deleted = expenseService.deleteExpense(userId, id);
         if (deleted) {
             return ResponseEntity.ok().build();
         } else {
@@ -83,18 +141,32 @@ public class ExpenseController {
 
     // GET /api/expenses/total - Get total expenses amount
     @GetMapping("/total")
-    public ResponseEntity<Double> getTotalExpenses() {
-        double total = expenseService.getTotalExpenses();
+    public ResponseEntity<Double> getTotalExpenses(@RequestHeader("X-User-Id") Long userId) {
+        double total = expenseService.getTotalExpenses(userId);
         return ResponseEntity.ok(total);
     }
 
     //GET /api/expenses/total/{category} - Get total expenses amount by category
     @GetMapping("total/{category}")
-    public ResponseEntity<Double> getTotalExpensesByCategory(@PathVariable String category){
-        double total = expenseService.getTotalExpensesByCategory(category);
+    public ResponseEntity<Double> getTotalExpensesByCategory(@RequestHeader("X-User-Id") Long userId, @PathVariable String category){
+        double total = expenseService.getTotalExpensesByCategory(userId, category);
         return ResponseEntity.ok(total);
     }
 
+    //GET /api/expenses/totals?categories=Food,Transport - Get totals for several categories in one round trip
+    @GetMapping("/totals")
+    public ResponseEntity<Map<String, Double>> getTotalsByCategory(@RequestHeader("X-User-Id") Long userId,
+                                                                   @RequestParam(required = false) List<String> categories) {
+        Map<String, Double> totals = expenseService.getTotalsByCategory(userId, categories);
+        return ResponseEntity.ok(totals);
+    }
+
+    //GET /api/expenses/cache/stats - Hit/miss/eviction statistics of the read caches
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStatistics() {
+        return ResponseEntity.ok(expenseReadCache.getStatistics());
+    }
+
     //This is just to show this message on frontend
     @GetMapping("/")
     public ResponseEntity<String> randomMessage() {
@@ -0,0 +1,66 @@
+package com.ritesh.expensetracker.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+// An expense moved out of the expenses table by ExpenseArchiveService. Same columns and id as
+// the original row; archived expenses are read-only and are added to expense_monthly_rollups.
+@Entity
+@Table(name = "expenses_archive", indexes = {
+    @Index(name = "idx_expenses_archive_user", columnList = "user_id")
+})
+public class ArchivedExpense {
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String description;
+
+    @Column(nullable = false)
+    private double amount;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(name = "expense_date", nullable = false)
+    private LocalDate date;
+
+    // Default constructor
+    public ArchivedExpense() {}
+
+    // Detached Expense with the same values, for code that serves both tiers
+    public Expense toExpense() {
+        Expense expense = new Expense(id, description, amount, category, date);
+        expense.setUserId(userId);
+        return expense;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+}
@@ -0,0 +1,86 @@
+package com.ritesh.expensetracker.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of a bulk insert, with one entry per submitted item in request order
+public class BulkInsertResult {
+
+    public enum Status {
+        CREATED, INVALID, FAILED
+    }
+
+    private final List<ItemResult> items;
+    private int created;
+    private int invalid;
+    private int failed;
+
+    public BulkInsertResult(int size) {
+        this.items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(null);
+        }
+    }
+
+    public void created(int index, Long id) {
+        items.set(index, new ItemResult(index, Status.CREATED, id, null));
+        created++;
+    }
+
+    public void invalid(int index, String error) {
+        items.set(index, new ItemResult(index, Status.INVALID, null, error));
+        invalid++;
+    }
+
+    public void failed(int index, String error) {
+        items.set(index, new ItemResult(index, Status.FAILED, null, error));
+        failed++;
+    }
+
+    public List<ItemResult> getItems() {
+        return items;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public static class ItemResult {
+
+        private final int index;
+        private final Status status;
+        private final Long id;
+        private final String error;
+
+        public ItemResult(int index, Status status, Long id, String error) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
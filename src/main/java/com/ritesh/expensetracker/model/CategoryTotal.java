@@ -0,0 +1,10 @@
+package com.ritesh.expensetracker.model;
+
+// Projection for per-category aggregates computed by the database
+public interface CategoryTotal {
+    String getCategory();
+
+    Double getTotal();
+
+    Long getCount();
+}
@@ -0,0 +1,31 @@
+package com.ritesh.expensetracker.model;
+
+import java.util.List;
+
+// One page of a keyset-paginated listing. Pass nextCursor back as ?cursor= to fetch the following page.
+public class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+
+    public int getSize() {
+        return items.size();
+    }
+}
@@ -0,0 +1,12 @@
+package com.ritesh.expensetracker.model;
+
+import java.time.LocalDate;
+
+// Projection for per-day aggregates computed by the database
+public interface DailyTotal {
+    LocalDate getDate();
+
+    Double getTotal();
+
+    Long getCount();
+}
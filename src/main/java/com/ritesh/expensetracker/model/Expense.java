@@ -2,12 +2,27 @@ package com.ritesh.expensetracker.model;
 
 import jakarta.persistence.*;
 
+import java.time.LocalDate;
+
 @Entity
-@Table(name = "expenses")
+// Every query is scoped to one user, so every index leads with user_id.
+// idx_expenses_user is (user_id, id) in InnoDB and serves the keyset pages ordered by id.
+// idx_expenses_date is (expense_date, id) in InnoDB and is walked by the archive job across all users.
+@Table(name = "expenses", indexes = {
+    @Index(name = "idx_expenses_user", columnList = "user_id"),
+    @Index(name = "idx_expenses_user_date", columnList = "user_id, expense_date"),
+    @Index(name = "idx_expenses_user_category", columnList = "user_id, category"),
+    @Index(name = "idx_expenses_user_amount", columnList = "user_id, amount"),
+    @Index(name = "idx_expenses_date", columnList = "expense_date")
+})
 public class Expense {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+
+    // Owner (users.id); always set by the service from the X-User-Id header, never from the request body
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
     
     @Column(nullable = false)
     private String description;
@@ -18,14 +33,14 @@ public class Expense {
     @Column(nullable = false)
     private String category;
     
-    @Column(nullable = false)
-    private String date;
+    @Column(name = "expense_date", nullable = false)
+    private LocalDate date;
 
     // Default constructor
     public Expense() {}
 
     // Constructor with fields
-    public Expense(Long id, String description, double amount, String category, String date) {
+    public Expense(Long id, String description, double amount, String category, LocalDate date) {
         this.id = id;
         this.description = description;
         this.amount = amount;
@@ -42,6 +57,14 @@ public class Expense {
         this.id = id;
     }
 
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -66,11 +89,11 @@ public class Expense {
         this.category = category;
     }
 
-    public String getDate() {
+    public LocalDate getDate() {
         return date;
     }
 
-    public void setDate(String date) {
+    public void setDate(LocalDate date) {
         this.date = date;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.ritesh.expensetracker.model;
+
+import java.time.LocalDate;
+
+// Projection of the columns that make up an expense's content (everything but the owner)
+public interface ExpenseContent {
+    Long getId();
+
+    String getDescription();
+
+    Double getAmount();
+
+    String getCategory();
+
+    LocalDate getDate();
+}
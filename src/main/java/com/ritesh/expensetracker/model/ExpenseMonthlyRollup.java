@@ -0,0 +1,61 @@
+package com.ritesh.expensetracker.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+// Sum and count of a user's archived expenses for one month and category.
+// Written by ExpenseArchiveService in the same transaction that moves the rows, so
+// expenses + expense_monthly_rollups always add up to every expense the user has.
+@Entity
+@Table(name = "expense_monthly_rollups", uniqueConstraints = @UniqueConstraint(
+        name = "uk_expense_rollups_user_month_category", columnNames = {"user_id", "month_start", "category"}))
+public class ExpenseMonthlyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // First day of the month
+    @Column(name = "month_start", nullable = false)
+    private LocalDate month;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(nullable = false)
+    private double total;
+
+    @Column(name = "expense_count", nullable = false)
+    private long count;
+
+    // Default constructor
+    public ExpenseMonthlyRollup() {}
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,12 @@
+package com.ritesh.expensetracker.model;
+
+import java.time.LocalDate;
+
+// Projection for per-month aggregates computed by the database (month is its first day)
+public interface MonthlyTotal {
+    LocalDate getMonth();
+
+    Double getTotal();
+
+    Long getCount();
+}
@@ -0,0 +1,10 @@
+package com.ritesh.expensetracker.model;
+
+// Projection for user listings: only the public columns, never the password
+public interface UserSummary {
+    Long getId();
+
+    String getName();
+
+    String getEmail();
+}
@@ -3,7 +3,7 @@ package com.ritesh.expensetracker.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = "uk_users_email", columnNames = "email"))
 public class Users {
 
     @Id
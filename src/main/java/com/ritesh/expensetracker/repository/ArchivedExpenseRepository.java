@@ -0,0 +1,30 @@
+package com.ritesh.expensetracker.repository;
+
+import com.ritesh.expensetracker.model.ArchivedExpense;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Cold tier: expenses moved out of the expenses table by ExpenseArchiveService.
+// Rows are inserted and removed by that job only; the application reads them one at a time or streams them.
+@Repository
+public interface ArchivedExpenseRepository extends JpaRepository<ArchivedExpense, Long> {
+
+    // Single-row lookup restricted to the owner (primary key)
+    Optional<ArchivedExpense> findByIdAndUserId(Long id, Long userId);
+
+    // Same streaming contract as ExpenseRepository.streamByUserIdOrderById
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM ArchivedExpense a WHERE a.userId = :userId ORDER BY a.id")
+    Stream<ArchivedExpense> streamByUserIdOrderById(@Param("userId") Long userId);
+}
@@ -0,0 +1,21 @@
+package com.ritesh.expensetracker.repository;
+
+import com.ritesh.expensetracker.model.ExpenseMonthlyRollup;
+import com.ritesh.expensetracker.model.MonthlyTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Monthly/category sums of archived expenses (see ExpenseArchiveService).
+// Every query reads a prefix of uk_expense_rollups_user_month_category: at most months x categories rows per user.
+@Repository
+public interface ExpenseMonthlyRollupRepository extends JpaRepository<ExpenseMonthlyRollup, Long> {
+
+    // Archived sum and count per month, oldest first
+    @Query("SELECT r.month AS month, SUM(r.total) AS total, SUM(r.count) AS count "
+            + "FROM ExpenseMonthlyRollup r WHERE r.userId = :userId GROUP BY r.month ORDER BY r.month")
+    List<MonthlyTotal> sumTotalGroupedByMonth(@Param("userId") Long userId);
+}
@@ -1,9 +1,25 @@
 package com.ritesh.expensetracker.repository;
 
+import com.ritesh.expensetracker.model.CategoryTotal;
+import com.ritesh.expensetracker.model.DailyTotal;
 import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.model.ExpenseContent;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     // Spring Data JPA provides all basic CRUD operations:
@@ -12,9 +28,123 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     // - findAll() - get all expenses
     // - deleteById(Long id) - delete by ID
     // - delete(Expense entity) - delete entity
-    
-    // You can add custom query methods here if needed
-    // For example:
-    // List<Expense> findByCategory(String category);
-    // List<Expense> findByAmountGreaterThan(double amount);
-} 
\ No newline at end of file
+
+    // Every query below is scoped to one user and answered from an index leading with user_id,
+    // so its cost depends on that user's rows only, not on the number of users.
+    //
+    // Expenses older than the archive horizon live in expenses_archive (see ExpenseArchiveService).
+    // - Whole-history aggregates add the user's expense_monthly_rollups rows to the hot rows, in one
+    //   statement so an archive batch committing in between cannot be counted twice or missed.
+    // - Date-window queries read the hot rows only; windows must start inside the hot range
+    //   (ExpenseArchiveService.getHotRangeStart()).
+    // - Row lookups and pages read the hot rows only; archived rows are read through ArchivedExpenseRepository.
+
+    // Single-row lookup restricted to the owner
+    Optional<Expense> findByIdAndUserId(Long id, Long userId);
+
+    List<Expense> findByUserId(Long userId);
+
+    // Aggregates are computed by the database so no entities are loaded
+
+    // Sum of all expense amounts, hot and archived (0 when the user has none)
+    @Query(nativeQuery = true, value = "SELECT COALESCE(SUM(t.total), 0) FROM ("
+            + "SELECT SUM(e.amount) AS total FROM expenses e WHERE e.user_id = :userId "
+            + "UNION ALL SELECT SUM(r.total) FROM expense_monthly_rollups r WHERE r.user_id = :userId) t")
+    double sumAmount(@Param("userId") Long userId);
+
+    // Sum of expense amounts for a single category, hot and archived (uses idx_expenses_user_category)
+    @Query(nativeQuery = true, value = "SELECT COALESCE(SUM(t.total), 0) FROM ("
+            + "SELECT SUM(e.amount) AS total FROM expenses e WHERE e.user_id = :userId AND e.category = :category "
+            + "UNION ALL SELECT SUM(r.total) FROM expense_monthly_rollups r "
+            + "WHERE r.user_id = :userId AND r.category = :category) t")
+    double sumAmountByCategory(@Param("userId") Long userId, @Param("category") String category);
+
+    // Sum of expense amounts dated on or after the given day (uses idx_expenses_user_date)
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e WHERE e.userId = :userId AND e.date >= :from")
+    double sumAmountSince(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+    // Sum and count grouped by category, hot and archived
+    @Query(nativeQuery = true, value = "SELECT t.category AS category, SUM(t.total) AS total, SUM(t.count) AS count FROM ("
+            + "SELECT e.category AS category, SUM(e.amount) AS total, COUNT(*) AS count "
+            + "FROM expenses e WHERE e.user_id = :userId GROUP BY e.category "
+            + "UNION ALL SELECT r.category, SUM(r.total), SUM(r.expense_count) "
+            + "FROM expense_monthly_rollups r WHERE r.user_id = :userId GROUP BY r.category) t "
+            + "GROUP BY t.category")
+    List<CategoryTotal> sumAmountGroupedByCategory(@Param("userId") Long userId);
+
+    // Sum and count grouped by category, hot and archived, restricted to the given categories
+    @Query(nativeQuery = true, value = "SELECT t.category AS category, SUM(t.total) AS total, SUM(t.count) AS count FROM ("
+            + "SELECT e.category AS category, SUM(e.amount) AS total, COUNT(*) AS count "
+            + "FROM expenses e WHERE e.user_id = :userId AND e.category IN (:categories) GROUP BY e.category "
+            + "UNION ALL SELECT r.category, SUM(r.total), SUM(r.expense_count) "
+            + "FROM expense_monthly_rollups r WHERE r.user_id = :userId AND r.category IN (:categories) GROUP BY r.category) t "
+            + "GROUP BY t.category")
+    List<CategoryTotal> sumAmountGroupedByCategory(@Param("userId") Long userId,
+                                                   @Param("categories") Collection<String> categories);
+
+    // Sum and count grouped by category, for expenses dated on or after the given day
+    @Query("SELECT e.category AS category, SUM(e.amount) AS total, COUNT(e) AS count "
+            + "FROM Expense e WHERE e.userId = :userId AND e.date >= :from GROUP BY e.category")
+    List<CategoryTotal> sumAmountGroupedByCategorySince(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+    // Content of each hot row, for the per-day totals and content checksum of ExpenseRollupService
+    // (archived months: ExpenseMonthlyRollupRepository)
+    @Query("SELECT e.id AS id, e.description AS description, e.amount AS amount, e.category AS category, "
+            + "e.date AS date FROM Expense e WHERE e.userId = :userId")
+    List<ExpenseContent> findContentByUserId(@Param("userId") Long userId);
+
+    // Sum and count grouped by day, for days on or after the given day
+    @Query("SELECT e.date AS date, SUM(e.amount) AS total, COUNT(e) AS count "
+            + "FROM Expense e WHERE e.userId = :userId AND e.date >= :from GROUP BY e.date")
+    List<DailyTotal> sumAmountGroupedByDateSince(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+    // Distinct category names, hot and archived (answered from idx_expenses_user_category)
+    @Query(nativeQuery = true, value = "SELECT e.category FROM expenses e WHERE e.user_id = :userId "
+            + "UNION SELECT r.category FROM expense_monthly_rollups r WHERE r.user_id = :userId")
+    List<String> findDistinctCategories(@Param("userId") Long userId);
+
+    // Most recent first, answered from idx_expenses_user_date
+    List<Expense> findByUserIdOrderByDateDescIdDesc(Long userId, Limit limit);
+
+    List<Expense> findByUserIdAndDateGreaterThanEqualOrderByDateDescIdDesc(Long userId, LocalDate from, Limit limit);
+
+    // Largest expenses first; ORDER BY amount DESC LIMIT n walks idx_expenses_user_amount backwards
+    List<Expense> findByUserIdOrderByAmountDesc(Long userId, Limit limit);
+
+    List<Expense> findByUserIdAndDateGreaterThanEqualOrderByAmountDesc(Long userId, LocalDate from, Limit limit);
+
+    // Category-bounded lookups (idx_expenses_user_category)
+    List<Expense> findByUserIdAndCategoryInOrderByAmountDesc(Long userId, Collection<String> categories, Limit limit);
+
+    List<Expense> findByUserIdAndCategoryInOrderByDateDescIdDesc(Long userId, Collection<String> categories, Limit limit);
+
+    // Keyset page ordered by id: the user's rows after afterId that match the optional filters.
+    // Null parameters disable their condition. Pass PageRequest.of(0, n) to bound the page;
+    // a List return type means no count query is issued.
+    @Query("SELECT e FROM Expense e WHERE e.userId = :userId "
+            + "AND (:afterId IS NULL OR e.id > :afterId) "
+            + "AND (:category IS NULL OR e.category = :category) "
+            + "AND (:fromDate IS NULL OR e.date >= :fromDate) "
+            + "AND (:toDate IS NULL OR e.date <= :toDate) "
+            + "AND (:minAmount IS NULL OR e.amount >= :minAmount) "
+            + "AND (:maxAmount IS NULL OR e.amount <= :maxAmount) "
+            + "ORDER BY e.id")
+    List<Expense> findPage(@Param("userId") Long userId,
+                           @Param("afterId") Long afterId,
+                           @Param("category") String category,
+                           @Param("fromDate") LocalDate fromDate,
+                           @Param("toDate") LocalDate toDate,
+                           @Param("minAmount") Double minAmount,
+                           @Param("maxAmount") Double maxAmount,
+                           Pageable pageable);
+
+    // Stream the user's expenses in id order without materializing the result.
+    // A fetch size of Integer.MIN_VALUE makes MySQL Connector/J stream rows one at a time
+    // instead of buffering the whole result set. Must be consumed inside a transaction and closed.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM Expense e WHERE e.userId = :userId ORDER BY e.id")
+    Stream<Expense> streamByUserIdOrderById(@Param("userId") Long userId);
+}
@@ -1,10 +1,32 @@
 package com.ritesh.expensetracker.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import com.ritesh.expensetracker.model.UserSummary;
 import com.ritesh.expensetracker.model.Users;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface UsersRepository extends JpaRepository<Users, Long> {
     boolean existsByEmail(String email);
+
+    // Which of the given emails are registered (one indexed IN lookup, case-insensitive in MySQL)
+    @Query("SELECT u.email FROM Users u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Keyset page of users ordered by email, after the given email and optionally limited to an
+    // email prefix. Both conditions are ranges on uk_users_email, so MySQL reads only the rows returned.
+    // The prefix must have LIKE wildcards escaped with '!'.
+    @Query("SELECT u.id AS id, u.Name AS name, u.email AS email FROM Users u "
+            + "WHERE (:afterEmail IS NULL OR u.email > :afterEmail) "
+            + "AND (:emailPrefix IS NULL OR u.email LIKE CONCAT(:emailPrefix, '%') ESCAPE '!') "
+            + "ORDER BY u.email")
+    List<UserSummary> findSummaryPage(@Param("afterEmail") String afterEmail,
+                                      @Param("emailPrefix") String emailPrefix,
+                                      Pageable pageable);
 }
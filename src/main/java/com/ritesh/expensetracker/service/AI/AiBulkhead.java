@@ -0,0 +1,89 @@
+package com.ritesh.expensetracker.service.AI;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs AI requests on virtual threads with bounded concurrency.
+// At most ai.bulkhead.max-concurrent calls run at once and at most ai.bulkhead.max-queued
+// wait for a slot. Anything beyond that, or waiting longer than ai.bulkhead.queue-timeout-ms,
+// fails fast with RejectedExecutionException. Slow LLM calls therefore never hold Tomcat
+// worker threads, and they cannot pile up without bound.
+@Component
+public class AiBulkhead {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiBulkhead.class);
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long queueTimeoutMs;
+
+    private final Semaphore permits;
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ai-call-", 0).factory());
+
+    public AiBulkhead(@Value("${ai.bulkhead.max-concurrent:8}") int maxConcurrent,
+                      @Value("${ai.bulkhead.max-queued:32}") int maxQueued,
+                      @Value("${ai.bulkhead.queue-timeout-ms:10000}") long queueTimeoutMs) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        if (admitted.incrementAndGet() > maxConcurrent + maxQueued) {
+            admitted.decrementAndGet();
+            logger.warn("AI bulkhead full ({} running, {} queued), rejecting request", maxConcurrent, maxQueued);
+            return CompletableFuture.failedFuture(new RejectedExecutionException("AI service is busy, please retry later"));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                if (!permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    result.completeExceptionally(new RejectedExecutionException("Timed out waiting for an AI call slot"));
+                    return;
+                }
+                try {
+                    result.complete(task.call());
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            } finally {
+                admitted.decrementAndGet();
+            }
+        });
+        return result;
+    }
+
+    public int getRunning() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getQueued() {
+        return Math.max(0, admitted.get() - getRunning());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,116 @@
+package com.ritesh.expensetracker.service.AI;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Circuit breaker around the AI upstream.
+// Opens when, over the last ai.circuit-breaker.window-size calls, either
+// - at least failure-rate-threshold % of calls failed, or
+// - at least slow-call-rate-threshold % took longer than slow-call-seconds.
+// Only upstream faults count as failures: 5xx responses, timeouts and I/O errors. A 4xx (bad key,
+// rejected request) is an answer from a healthy upstream and is recorded as a success.
+// While open, calls fail immediately with CallNotPermittedException instead of waiting out the
+// read timeout. After wait-in-open-seconds it lets half-open-calls probes through and closes
+// again if they succeed.
+@Component
+public class AiCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiCircuitBreaker.class);
+
+    private final CircuitBreaker circuitBreaker;
+
+    public AiCircuitBreaker(@Value("${ai.circuit-breaker.window-size:20}") int windowSize,
+                            @Value("${ai.circuit-breaker.minimum-calls:5}") int minimumCalls,
+                            @Value("${ai.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                            @Value("${ai.circuit-breaker.slow-call-seconds:30}") long slowCallSeconds,
+                            @Value("${ai.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+                            @Value("${ai.circuit-breaker.wait-in-open-seconds:30}") long waitInOpenSeconds,
+                            @Value("${ai.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(windowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofSeconds(slowCallSeconds))
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .recordException(AiCircuitBreaker::isUpstreamFailure)
+                .waitDurationInOpenState(Duration.ofSeconds(waitInOpenSeconds))
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build();
+        this.circuitBreaker = CircuitBreaker.of("deepseek", config);
+        this.circuitBreaker.getEventPublisher().onStateTransition(event ->
+                logger.warn("AI circuit breaker: {}", event.getStateTransition()));
+    }
+
+    // Run the call through the breaker; throws CallNotPermittedException while open
+    public <T> T execute(Callable<T> call) throws Exception {
+        return circuitBreaker.executeCallable(call);
+    }
+
+    // For streamed calls the caller reports the outcome itself, so that the slow-call clock can
+    // stop at the first token instead of at the end of the stream. Returns the start time to
+    // pass to onSuccess/onError; throws CallNotPermittedException while open.
+    public long acquirePermission() {
+        circuitBreaker.acquirePermission();
+        return System.nanoTime();
+    }
+
+    public void onSuccess(long startNanos) {
+        circuitBreaker.onSuccess(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void onError(long startNanos, Throwable throwable) {
+        circuitBreaker.onError(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS, throwable);
+    }
+
+    // True while calls are being rejected (open or forced open); half-open still lets probes through
+    public boolean isOpen() {
+        CircuitBreaker.State state = circuitBreaker.getState();
+        return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    public static boolean isNotPermitted(Throwable throwable) {
+        return throwable instanceof CallNotPermittedException;
+    }
+
+    // Looks through the causes, since callers wrap RestClientException in their own exceptions
+    public static boolean isUpstreamFailure(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpStatusCodeException e) {
+                return e.getStatusCode().is5xxServerError();
+            }
+            if (cause instanceof ResourceAccessException || cause instanceof IOException
+                    || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Map<String, Object> getStatistics() {
+        CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("state", circuitBreaker.getState().name());
+        values.put("failureRate", metrics.getFailureRate());
+        values.put("slowCallRate", metrics.getSlowCallRate());
+        values.put("bufferedCalls", metrics.getNumberOfBufferedCalls());
+        values.put("notPermittedCalls", metrics.getNumberOfNotPermittedCalls());
+        return values;
+    }
+}
@@ -0,0 +1,175 @@
+package com.ritesh.expensetracker.service.AI;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.service.ExpenseChangeEvent;
+import com.ritesh.expensetracker.service.ExpenseRollupService;
+import com.ritesh.expensetracker.service.UserDeletedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Caches AI insight responses by user, endpoint, query type, normalized query and data version.
+// - The data version is the user's rollup fingerprint (rows, cents and a content checksum) plus
+//   the current date, so relative questions ("this month", "today") never outlive the day they
+//   were asked on.
+// - An expense change also drops the owner's entries. A response computed before the change and
+//   put afterwards lands under the old fingerprint, which no later key matches.
+// - Bounded (ai.cache.max-size) and expiring (ai.cache.ttl-seconds).
+// - When ai.cache.file is set, entries are written there on shutdown and reloaded on startup.
+//   The fingerprint in the key makes entries for data that changed while we were down unreachable.
+@Component
+public class AiResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiResponseCache.class);
+
+    @Autowired
+    private ExpenseRollupService expenseRollupService;
+
+    @Value("${ai.cache.max-size:1000}")
+    private long maxSize;
+
+    @Value("${ai.cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${ai.cache.file:}")
+    private String persistFile;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Cache<String, Entry> cache;
+
+    @PostConstruct
+    private void initialize() {
+        long ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                // Entries expire ttl after they were first created, also across a restart
+                .expireAfter(Expiry.<String, Entry>creating((key, entry) ->
+                        Duration.ofNanos(Math.max(0, ttlNanos - (System.currentTimeMillis() - entry.createdAt()) * 1_000_000))))
+                .recordStats()
+                .build();
+        load();
+    }
+
+    // Build the cache key; the endpoint and query type keep different prompts for the same words apart
+    public String key(Long userId, String endpoint, String queryType, String query) {
+        return userPrefix(userId) + endpoint + '|' + queryType + '|' + normalize(query) + '|'
+                + expenseRollupService.getDataFingerprint(userId) + '|' + LocalDate.now();
+    }
+
+    public Optional<String> get(String key) {
+        Entry entry = cache.getIfPresent(key);
+        return entry == null ? Optional.empty() : Optional.of(entry.response());
+    }
+
+    public void put(String key, String response) {
+        cache.put(key, new Entry(response, System.currentTimeMillis()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChange(ExpenseChangeEvent event) {
+        Set<String> prefixes = new HashSet<>();
+        for (Expense expense : event.getRemoved()) {
+            prefixes.add(userPrefix(expense.getUserId()));
+        }
+        for (Expense expense : event.getAdded()) {
+            prefixes.add(userPrefix(expense.getUserId()));
+        }
+        cache.asMap().keySet().removeIf(key -> prefixes.contains(key.substring(0, key.indexOf('|') + 1)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        String prefix = userPrefix(event.getUserId());
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("size", cache.estimatedSize());
+        values.put("hitCount", stats.hitCount());
+        values.put("missCount", stats.missCount());
+        values.put("hitRate", stats.hitRate());
+        values.put("evictionCount", stats.evictionCount());
+        return values;
+    }
+
+    private static String userPrefix(Long userId) {
+        return userId + "|";
+    }
+
+    // Lower-case, collapse whitespace and drop trailing punctuation, so
+    // "How much did I spend this month?" and "how much did i  spend this month" share an entry
+    static String normalize(String query) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        int end = normalized.length();
+        while (end > 0 && ".?!".indexOf(normalized.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return normalized.substring(0, end).trim();
+    }
+
+    private void load() {
+        if (persistFile.isBlank()) {
+            return;
+        }
+        Path path = Path.of(persistFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            Map<String, Entry> entries = objectMapper.readValue(path.toFile(), new TypeReference<Map<String, Entry>>() {});
+            cache.putAll(entries);
+            cache.cleanUp();
+            logger.info("Loaded {} AI responses from {}", cache.estimatedSize(), path);
+        } catch (IOException e) {
+            logger.warn("Could not load AI response cache from {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void save() {
+        if (persistFile.isBlank()) {
+            return;
+        }
+        Path path = Path.of(persistFile);
+        try {
+            Map<String, Entry> entries = Map.copyOf(cache.asMap());
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "ai-cache", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), entries);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved {} AI responses to {}", entries.size(), path);
+        } catch (IOException e) {
+            logger.warn("Could not save AI response cache to {}: {}", path, e.getMessage());
+        }
+    }
+
+    record Entry(String response, long createdAt) {
+    }
+}
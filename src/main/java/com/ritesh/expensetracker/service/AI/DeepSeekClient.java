@@ -0,0 +1,255 @@
+package com.ritesh.expensetracker.service.AI;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Client for the OpenAI-compatible chat completions endpoint (OpenRouter / DeepSeek).
+// Calls go through a pooled Apache HttpClient 5, so TCP and TLS connections are kept alive and
+// reused between calls instead of being set up per request. Idle and expired connections are
+// evicted in the background. Note that the classic (blocking) client speaks HTTP/1.1 only.
+@Component
+public class DeepSeekClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeepSeekClient.class);
+
+    private static final String MODEL = "deepseek/deepseek-r1-0528:free";
+    private static final int MAX_TOKENS = 800; // Reduced for faster response
+    private static final double TEMPERATURE = 0.7;
+
+    // Receives streamed deltas; type is "content" or "reasoning"
+    public interface StreamListener {
+        void onDelta(String type, String text) throws IOException;
+    }
+
+    private final String apiUrl;
+    private final String apiKey;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public DeepSeekClient(@Value("${deepseek.api.url}") String apiUrl,
+                          @Value("${deepseek.api.key}") String apiKey,
+                          @Value("${deepseek.api.timeout.connect:120}") int connectTimeoutSeconds,
+                          @Value("${deepseek.api.timeout.read:120}") int readTimeoutSeconds,
+                          @Value("${deepseek.api.pool.max-connections:20}") int maxConnections,
+                          @Value("${deepseek.api.pool.idle-timeout-seconds:60}") long idleTimeoutSeconds,
+                          @Value("${deepseek.api.pool.time-to-live-seconds:600}") long timeToLiveSeconds) {
+        this.apiUrl = apiUrl;
+        this.apiKey = apiKey;
+
+        // Single upstream host, so the per-route limit is the pool size
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofSeconds(connectTimeoutSeconds))
+                        .setSocketTimeout(Timeout.ofSeconds(readTimeoutSeconds))
+                        .setTimeToLive(TimeValue.ofSeconds(timeToLiveSeconds))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofSeconds(connectTimeoutSeconds))
+                        .setResponseTimeout(Timeout.ofSeconds(readTimeoutSeconds))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(idleTimeoutSeconds))
+                .evictExpiredConnections()
+                .build();
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        logger.info("DeepSeek client configured: pool={} connections, idle eviction={}s, connect={}s, read={}s",
+                maxConnections, idleTimeoutSeconds, connectTimeoutSeconds, readTimeoutSeconds);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        httpClient.close();
+    }
+
+    public HttpHeaders createHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(apiKey);
+
+        // Optional: OpenRouter specific headers
+        headers.set("HTTP-Referer", "http://localhost:8080");
+        headers.set("X-Title", "Expense Tracker AI");
+        return headers;
+    }
+
+    public Map<String, Object> buildRequestBody(String prompt, boolean stream) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", MODEL);
+        requestBody.put("max_tokens", MAX_TOKENS);
+        requestBody.put("temperature", TEMPERATURE);
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+
+        List<Map<String, String>> messages = new ArrayList<>();
+        Map<String, String> message = new HashMap<>();
+        message.put("role", "user");
+        message.put("content", prompt);
+        messages.add(message);
+        requestBody.put("messages", messages);
+        return requestBody;
+    }
+
+    // Blocking completion; returns the answer text (the reasoning when the model gave no content).
+    // The body is serialized once, to bytes, and those bytes are sent as-is.
+    public String complete(String prompt) throws IOException {
+        byte[] body = serialize(buildRequestBody(prompt, false));
+        logger.debug("Request body size: {} bytes", body.length);
+
+        long startTime = System.currentTimeMillis();
+        ResponseEntity<byte[]> response = restTemplate.exchange(apiUrl, HttpMethod.POST,
+                new HttpEntity<>(body, createHeaders()), byte[].class);
+        logger.info("API call completed in {} ms", System.currentTimeMillis() - startTime);
+        logger.debug("API Response status: {}, length: {}", response.getStatusCode(),
+                response.getBody() != null ? response.getBody().length : 0);
+
+        return extractContent(response.getBody());
+    }
+
+    // Request a streamed completion and hand each content/reasoning delta to the listener as it arrives.
+    // Returns once the upstream sends [DONE] or closes the stream. An IOException thrown by the
+    // listener (e.g. the client went away) aborts the upstream request.
+    public void streamCompletion(String prompt, StreamListener listener) {
+        byte[] body;
+        try {
+            body = serialize(buildRequestBody(prompt, true));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not serialize request body", e);
+        }
+        HttpHeaders headers = createHeaders();
+        headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+
+        logger.info("Starting streamed API call to {} ({} bytes)", apiUrl, body.length);
+        long startTime = System.currentTimeMillis();
+        restTemplate.execute(apiUrl, HttpMethod.POST,
+                request -> {
+                    request.getHeaders().putAll(headers);
+                    request.getBody().write(body);
+                },
+                response -> {
+                    readEvents(response.getBody(), listener);
+                    return null;
+                });
+        logger.info("Streamed API call completed in {} ms", System.currentTimeMillis() - startTime);
+    }
+
+    // Connection pool usage: leased (in use), available (idle, kept alive), pending (waiting for a connection)
+    public Map<String, Object> getPoolStatistics() {
+        PoolStats stats = connectionManager.getTotalStats();
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("leased", stats.getLeased());
+        values.put("available", stats.getAvailable());
+        values.put("pending", stats.getPending());
+        values.put("max", stats.getMax());
+        return values;
+    }
+
+    private byte[] serialize(Map<String, Object> requestBody) throws IOException {
+        return objectMapper.writeValueAsBytes(requestBody);
+    }
+
+    private String extractContent(byte[] responseBody) throws IOException {
+        if (responseBody == null) {
+            throw new IOException("Failed to parse API response: empty body");
+        }
+        JsonNode jsonNode = objectMapper.readTree(responseBody);
+
+        // Check if response has the expected structure
+        if (!jsonNode.has("choices") || jsonNode.path("choices").isEmpty()) {
+            throw new IOException("Failed to parse API response: missing choices array");
+        }
+        JsonNode firstChoice = jsonNode.path("choices").get(0);
+        if (!firstChoice.has("message")) {
+            throw new IOException("Failed to parse API response: missing message in choice");
+        }
+        JsonNode messageNode = firstChoice.path("message");
+
+        // Try to get content from the "content" field first
+        String content = messageNode.path("content").asText();
+
+        // If content is empty, try to get it from the "reasoning" field (for deepseek-r1 models)
+        if (content == null || content.trim().isEmpty()) {
+            content = messageNode.path("reasoning").asText();
+            logger.debug("Content was empty, using reasoning field instead");
+        }
+        if (content == null || content.trim().isEmpty()) {
+            logger.error("Both content and reasoning fields are empty in API response");
+            throw new IOException("Failed to parse API response: empty content");
+        }
+
+        logger.debug("Successfully extracted content with length: {}", content.length());
+        return content;
+    }
+
+    // Parse "data: {...}" server-sent events line by line
+    private void readEvents(InputStream inputStream, StreamListener listener) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            // Blank lines separate events; lines starting with ':' are keep-alive comments
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) {
+                return;
+            }
+            if (data.isEmpty()) {
+                continue;
+            }
+
+            JsonNode chunk = objectMapper.readTree(data);
+            if (chunk.has("error")) {
+                throw new IOException("Upstream error: " + chunk.path("error").path("message").asText(chunk.path("error").toString()));
+            }
+            JsonNode delta = chunk.path("choices").path(0).path("delta");
+            String reasoning = delta.path("reasoning").asText("");
+            if (!reasoning.isEmpty()) {
+                listener.onDelta("reasoning", reasoning);
+            }
+            String content = delta.path("content").asText("");
+            if (!content.isEmpty()) {
+                listener.onDelta("content", content);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ritesh.expensetracker.service.AI;
+
+import com.ritesh.expensetracker.model.CategoryTotal;
+import com.ritesh.expensetracker.model.DailyTotal;
+import com.ritesh.expensetracker.model.Expense;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Everything a prompt needs about a set of expenses:
+// - count and total
+// - per-category sums
+// - per-month sums
+// - the topK largest and the topK most recent expenses
+// Built either in one pass over rows (of) or from database aggregates plus bounded row
+// queries (fromTotals), so large sets never have to be loaded.
+// The top-K lists use bounded min-heaps (O(n log k), no full sort), and the month buckets
+// are looked up by an int key without creating YearMonth objects per row.
+public final class ExpenseAggregation {
+
+    private static final Comparator<Expense> BY_AMOUNT = Comparator.comparingDouble(Expense::getAmount);
+    private static final Comparator<Expense> BY_RECENCY = Comparator.comparing(Expense::getDate)
+            .thenComparing(Expense::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final int topK;
+    private long count;
+    private double total;
+    private final Map<String, double[]> categoryTotals = new HashMap<>();
+    private final MonthBuckets months = new MonthBuckets();
+    private final PriorityQueue<Expense> largest;
+    private final PriorityQueue<Expense> latest;
+
+    private ExpenseAggregation(int topK) {
+        this.topK = topK;
+        this.largest = new PriorityQueue<>(topK + 1, BY_AMOUNT);
+        this.latest = new PriorityQueue<>(topK + 1, BY_RECENCY);
+    }
+
+    public static ExpenseAggregation of(Iterable<Expense> expenses, int topK) {
+        ExpenseAggregation aggregation = new ExpenseAggregation(topK);
+        for (Expense expense : expenses) {
+            aggregation.add(expense);
+        }
+        return aggregation;
+    }
+
+    // Assemble from GROUP BY results and already bounded row lists. dailyTotals may be empty
+    // when monthly sums are not needed; largest may be several query results concatenated,
+    // duplicates are dropped by id.
+    public static ExpenseAggregation fromTotals(List<CategoryTotal> categoryTotals, List<DailyTotal> dailyTotals,
+                                                List<Expense> largest, List<Expense> latest, int topK) {
+        ExpenseAggregation aggregation = new ExpenseAggregation(topK);
+        for (CategoryTotal row : categoryTotals) {
+            aggregation.count += row.getCount();
+            aggregation.total += row.getTotal();
+            aggregation.categoryTotals.computeIfAbsent(row.getCategory(), k -> new double[1])[0] += row.getTotal();
+        }
+        for (DailyTotal row : dailyTotals) {
+            LocalDate date = row.getDate();
+            aggregation.months.add(date.getYear() * 12 + date.getMonthValue() - 1, row.getTotal());
+        }
+        Set<Long> seen = new HashSet<>();
+        for (Expense expense : largest) {
+            if (seen.add(expense.getId())) {
+                offer(aggregation.largest, expense, topK, BY_AMOUNT);
+            }
+        }
+        for (Expense expense : latest) {
+            offer(aggregation.latest, expense, topK, BY_RECENCY);
+        }
+        return aggregation;
+    }
+
+    private void add(Expense expense) {
+        double amount = expense.getAmount();
+        count++;
+        total += amount;
+        categoryTotals.computeIfAbsent(expense.getCategory(), k -> new double[1])[0] += amount;
+        LocalDate date = expense.getDate();
+        months.add(date.getYear() * 12 + date.getMonthValue() - 1, amount);
+        offer(largest, expense, topK, BY_AMOUNT);
+        offer(latest, expense, topK, BY_RECENCY);
+    }
+
+    private static void offer(PriorityQueue<Expense> heap, Expense expense, int k, Comparator<Expense> order) {
+        if (k <= 0) {
+            return;
+        }
+        if (heap.size() < k) {
+            heap.add(expense);
+        } else if (order.compare(expense, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(expense);
+        }
+    }
+
+    private static List<Expense> drainDescending(PriorityQueue<Expense> heap) {
+        List<Expense> result = new ArrayList<>(heap);
+        result.sort(heap.comparator().reversed());
+        return result;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    // The n largest categories, largest first
+    public List<Map.Entry<String, Double>> getTopCategories(int n) {
+        List<Map.Entry<String, Double>> categories = new ArrayList<>(categoryTotals.size());
+        categoryTotals.forEach((category, sum) -> categories.add(Map.entry(category, sum[0])));
+        categories.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        return categories.size() > n ? categories.subList(0, n) : categories;
+    }
+
+    public int getCategoryCount() {
+        return categoryTotals.size();
+    }
+
+    // Totals per month, oldest first
+    public NavigableMap<YearMonth, Double> getMonthlyTotals() {
+        return months.toMap();
+    }
+
+    // Up to topK expenses, largest amount first
+    public List<Expense> getLargest() {
+        return drainDescending(largest);
+    }
+
+    // Up to topK expenses, most recent first
+    public List<Expense> getLatest() {
+        return drainDescending(latest);
+    }
+
+    // Parallel arrays of month key -> sum. There are only a few dozen months, and rows usually
+    // arrive grouped by date, so the last bucket used is checked before scanning.
+    private static final class MonthBuckets {
+        private int[] keys = new int[16];
+        private double[] sums = new double[16];
+        private int size;
+        private int last = -1;
+
+        void add(int key, double amount) {
+            if (last < 0 || keys[last] != key) {
+                last = indexOf(key);
+            }
+            sums[last] += amount;
+        }
+
+        private int indexOf(int key) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                sums = Arrays.copyOf(sums, size * 2);
+            }
+            keys[size] = key;
+            return size++;
+        }
+
+        NavigableMap<YearMonth, Double> toMap() {
+            NavigableMap<YearMonth, Double> totals = new TreeMap<>();
+            for (int i = 0; i < size; i++) {
+                totals.put(YearMonth.of(Math.floorDiv(keys[i], 12), Math.floorMod(keys[i], 12) + 1), sums[i]);
+            }
+            return totals;
+        }
+    }
+}
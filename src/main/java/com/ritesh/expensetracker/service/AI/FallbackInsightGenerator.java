@@ -0,0 +1,145 @@
+package com.ritesh.expensetracker.service.AI;
+
+import static com.ritesh.expensetracker.service.AI.PromptText.appendAmount;
+import static com.ritesh.expensetracker.service.AI.PromptText.appendPercent;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Rule-based insight built locally from the analytics snapshot and the monthly rollups.
+// Served instead of an LLM answer while the AI circuit breaker is open, so it must be
+// fast and must not touch the database or the network. Same input (including today), same text.
+@Component
+public class FallbackInsightGenerator {
+
+    public static final String NOTICE =
+            "[Offline insight - the AI service is temporarily unavailable, this summary was generated locally]";
+
+    private static final int TOP_CATEGORIES = 5;
+    private static final int TREND_MONTHS = 3;
+
+    public String generate(String userQuery, Map<String, Object> analytics, Map<YearMonth, Double> monthlyTotals,
+                           LocalDate today) {
+        StringBuilder insight = new StringBuilder(NOTICE).append("\n\n");
+        if (analytics.isEmpty()) {
+            return insight.append("No expense data available yet. Add some expenses to get insights.").toString();
+        }
+
+        double totalAmount = number(analytics.get("totalAmount"));
+        long totalCount = (long) number(analytics.get("totalCount"));
+        double recentMonthTotal = number(analytics.get("recentMonthTotal"));
+
+        insight.append("OVERVIEW:\n- Total spent: $");
+        appendAmount(insight, totalAmount).append(" across ").append(totalCount).append(" transactions (average $");
+        appendAmount(insight, number(analytics.get("averageAmount"))).append(")\n- Last 30 days: $");
+        appendAmount(insight, recentMonthTotal).append('\n');
+
+        List<Map.Entry<String, Double>> categories = sortedCategories(analytics);
+        if (!categories.isEmpty()) {
+            insight.append("\nTOP CATEGORIES:\n");
+            for (Map.Entry<String, Double> entry : categories.subList(0, Math.min(TOP_CATEGORIES, categories.size()))) {
+                appendCategory(insight, entry, totalAmount);
+            }
+            // A category named in the question is always shown
+            String query = userQuery.toLowerCase(Locale.ROOT);
+            for (Map.Entry<String, Double> entry : categories.subList(Math.min(TOP_CATEGORIES, categories.size()), categories.size())) {
+                if (query.contains(entry.getKey().toLowerCase(Locale.ROOT))) {
+                    appendCategory(insight, entry, totalAmount);
+                }
+            }
+        }
+
+        List<Map.Entry<YearMonth, Double>> months = new ArrayList<>(monthlyTotals.entrySet());
+        months.sort(Map.Entry.comparingByKey());
+        double averageMonth = months.isEmpty() ? 0 : totalAmount / months.size();
+        if (months.size() > 1) {
+            insight.append("\nTREND:\n");
+            for (Map.Entry<YearMonth, Double> entry : months.subList(Math.max(0, months.size() - TREND_MONTHS), months.size())) {
+                insight.append("- ").append(entry.getKey()).append(": $");
+                appendAmount(insight, entry.getValue()).append('\n');
+            }
+            appendChange(insight, months.get(months.size() - 2), months.get(months.size() - 1), today);
+        }
+
+        insight.append("\nSUGGESTIONS:\n");
+        int suggestions = 0;
+        if (!categories.isEmpty() && totalAmount > 0) {
+            Map.Entry<String, Double> top = categories.get(0);
+            double share = top.getValue() / totalAmount * 100;
+            if (share >= 30) {
+                insight.append("- ").append(top.getKey()).append(" makes up ");
+                appendPercent(insight, share).append("% of your spending; a monthly limit there has the biggest effect.\n");
+                suggestions++;
+            }
+        }
+        if (averageMonth > 0 && recentMonthTotal > averageMonth * 1.1) {
+            insight.append("- The last 30 days are ");
+            appendPercent(insight, (recentMonthTotal / averageMonth - 1) * 100).append("% above your average month ($");
+            appendAmount(insight, averageMonth).append("); review recent purchases.\n");
+            suggestions++;
+        }
+        if (suggestions == 0) {
+            insight.append("- Spending looks steady. Review recurring expenses in your top categories to find savings.\n");
+        }
+        return insight.toString();
+    }
+
+    // Change of the latest month from the one before. While the latest month is the current one it
+    // is compared with the same share of the previous month (day 10 of 30 against a third of it),
+    // so a month in progress does not read as a fall.
+    private static void appendChange(StringBuilder insight, Map.Entry<YearMonth, Double> previous,
+                                     Map.Entry<YearMonth, Double> latest, LocalDate today) {
+        boolean inProgress = latest.getKey().equals(YearMonth.from(today))
+                && today.getDayOfMonth() < today.lengthOfMonth();
+        double baseline = inProgress
+                ? previous.getValue() * today.getDayOfMonth() / today.lengthOfMonth()
+                : previous.getValue();
+        if (baseline <= 0) {
+            return;
+        }
+        double change = (latest.getValue() - baseline) / baseline * 100;
+        insight.append("- ").append(latest.getKey());
+        if (inProgress) {
+            insight.append(" to day ").append(today.getDayOfMonth());
+        }
+        insight.append(change >= 0 ? " is up " : " is down ");
+        appendPercent(insight, Math.abs(change)).append("% from ");
+        if (inProgress) {
+            insight.append("the same share of ");
+        }
+        insight.append(previous.getKey()).append('\n');
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map.Entry<String, Double>> sortedCategories(Map<String, Object> analytics) {
+        Object totals = analytics.get("categoryTotals");
+        if (!(totals instanceof Map<?, ?>)) {
+            return List.of();
+        }
+        List<Map.Entry<String, Double>> categories = new ArrayList<>(((Map<String, Double>) totals).entrySet());
+        categories.sort(Map.Entry.<String, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())));
+        return categories;
+    }
+
+    private static void appendCategory(StringBuilder insight, Map.Entry<String, Double> entry, double totalAmount) {
+        insight.append("- ").append(entry.getKey()).append(": $");
+        appendAmount(insight, entry.getValue());
+        if (totalAmount > 0) {
+            insight.append(" (");
+            appendPercent(insight, entry.getValue() / totalAmount * 100).append("%)");
+        }
+        insight.append('\n');
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0;
+    }
+}
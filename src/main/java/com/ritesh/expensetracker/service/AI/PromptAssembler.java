@@ -0,0 +1,153 @@
+package com.ritesh.expensetracker.service.AI;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Assembles a prompt that fits a token budget.
+// - The head (question and summary) and the footer (instructions) are always included.
+// - Sections are then given the remaining budget in priority order (lower value first), line
+//   by line, so a low-priority section is cut before a high-priority one loses anything.
+// - Sections are rendered in the order they were added, whatever their priority.
+// - Every cut is stated in the prompt ("+3 more rows not shown"; "Omitted for length: ..."),
+//   so the model knows the data is incomplete.
+// Tokens are estimated as characters / 4, the usual rule of thumb for English text and digits.
+public final class PromptAssembler {
+
+    static final int CHARS_PER_TOKEN = 4;
+    // Room kept for the "+N more rows" and "Omitted for length" notes
+    private static final int NOTE_RESERVE = 40;
+    private static final int OMITTED_RESERVE = 120;
+
+    private final int tokenBudget;
+    private final StringBuilder head = new StringBuilder(512);
+    private final StringBuilder footer = new StringBuilder(128);
+    private final List<Section> sections = new ArrayList<>();
+
+    private int estimatedTokens;
+    private int omittedLines;
+
+    public PromptAssembler(int tokenBudget) {
+        this.tokenBudget = tokenBudget;
+    }
+
+    public StringBuilder head() {
+        return head;
+    }
+
+    public StringBuilder footer() {
+        return footer;
+    }
+
+    // Written as "\nNAME:\n" followed by the section's lines
+    public Section section(String name, int priority) {
+        Section section = new Section(name, priority);
+        sections.add(section);
+        return section;
+    }
+
+    public String assemble() {
+        int remaining = tokenBudget * CHARS_PER_TOKEN - head.length() - footer.length() - OMITTED_RESERVE;
+        List<Section> byPriority = new ArrayList<>(sections);
+        byPriority.sort(Comparator.comparingInt(section -> section.priority));
+        for (Section section : byPriority) {
+            remaining -= section.fit(remaining);
+        }
+
+        StringBuilder prompt = new StringBuilder(head.length() + footer.length() + tokenBudget * CHARS_PER_TOKEN);
+        prompt.append(head);
+        List<String> omittedSections = new ArrayList<>();
+        omittedLines = 0;
+        for (Section section : sections) {
+            omittedLines += section.lines.size() - section.included;
+            if (section.included == 0) {
+                if (!section.lines.isEmpty()) {
+                    omittedSections.add(section.name + " (" + section.lines.size() + " rows)");
+                }
+                continue;
+            }
+            prompt.append(section.title());
+            for (int i = 0; i < section.included; i++) {
+                prompt.append(section.lines.get(i)).append('\n');
+            }
+            int cut = section.lines.size() - section.included;
+            if (cut > 0) {
+                prompt.append("(+").append(cut).append(" more rows not shown)\n");
+            }
+        }
+        if (!omittedSections.isEmpty()) {
+            prompt.append("\nOmitted for length: ").append(String.join(", ", omittedSections)).append('\n');
+        }
+        prompt.append(footer);
+        estimatedTokens = estimateTokens(prompt);
+        return prompt.toString();
+    }
+
+    public int getTokenBudget() {
+        return tokenBudget;
+    }
+
+    // Estimated size of the last assembled prompt
+    public int getEstimatedTokens() {
+        return estimatedTokens;
+    }
+
+    // Lines left out of the last assembled prompt
+    public int getOmittedLines() {
+        return omittedLines;
+    }
+
+    public static int estimateTokens(CharSequence text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    public static final class Section {
+        private final String name;
+        private final int priority;
+        private final List<String> lines = new ArrayList<>();
+        private String columns;
+        private int included;
+
+        private Section(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+
+        // Column header for tabular sections, e.g. "date|amount|category|description"
+        public Section columns(String columns) {
+            this.columns = columns;
+            return this;
+        }
+
+        private String title() {
+            return columns == null ? "\n" + name + ":\n" : "\n" + name + " (" + columns + "):\n";
+        }
+
+        // Lines should be added most important first; cuts drop lines from the end
+        public Section line(CharSequence line) {
+            lines.add(line.toString());
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return lines.isEmpty();
+        }
+
+        // Include as many lines as fit; returns the characters used
+        private int fit(int available) {
+            included = 0;
+            if (lines.isEmpty()) {
+                return 0;
+            }
+            int used = title().length() + NOTE_RESERVE;
+            for (String line : lines) {
+                if (used + line.length() + 1 > available) {
+                    break;
+                }
+                used += line.length() + 1;
+                included++;
+            }
+            return included == 0 ? 0 : used;
+        }
+    }
+}
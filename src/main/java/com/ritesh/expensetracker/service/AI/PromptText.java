@@ -0,0 +1,57 @@
+package com.ritesh.expensetracker.service.AI;
+
+import com.ritesh.expensetracker.model.Expense;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Appends numbers and expense rows to prompt text directly, without String.format.
+// Output matches "%.2f" / "%.1f": like Formatter, the shortest decimal form of the double is
+// rounded half-up, so 1.005 gives 1.01 even though the double is slightly below it.
+public final class PromptText {
+
+    private static final int DESCRIPTION_LIMIT = 30;
+
+    private PromptText() {}
+
+    public static StringBuilder appendAmount(StringBuilder text, double value) {
+        return appendFixed(text, value, 2);
+    }
+
+    public static StringBuilder appendPercent(StringBuilder text, double value) {
+        return appendFixed(text, value, 1);
+    }
+
+    // Compact table row "2025-01-31|12.50|Category|description", description cut to 30 characters.
+    // '|' and line breaks in user text are replaced so a row always stays one line of four columns.
+    public static StringBuilder appendExpenseRow(StringBuilder text, Expense expense) {
+        text.append(expense.getDate()).append('|');
+        appendAmount(text, expense.getAmount()).append('|');
+        appendCell(text, expense.getCategory(), DESCRIPTION_LIMIT).append('|');
+        return appendCell(text, expense.getDescription(), DESCRIPTION_LIMIT);
+    }
+
+    private static StringBuilder appendCell(StringBuilder text, String value, int limit) {
+        int end = Math.min(value.length(), limit);
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            text.append(c == '|' ? '/' : c == '\n' || c == '\r' ? ' ' : c);
+        }
+        if (value.length() > limit) {
+            text.append("...");
+        }
+        return text;
+    }
+
+    private static StringBuilder appendFixed(StringBuilder text, double value, int digits) {
+        if (!Double.isFinite(value)) {
+            return text.append(value);
+        }
+        // Sign first, so -0.001 gives -0.00 as with Formatter
+        if (Math.copySign(1.0, value) < 0) {
+            text.append('-');
+            value = -value;
+        }
+        return text.append(BigDecimal.valueOf(value).setScale(digits, RoundingMode.HALF_UP).toPlainString());
+    }
+}
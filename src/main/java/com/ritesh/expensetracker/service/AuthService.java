@@ -1,45 +1,138 @@
 package com.ritesh.expensetracker.service;
 
+import com.ritesh.expensetracker.model.CursorPage;
+import com.ritesh.expensetracker.model.UserSummary;
 import com.ritesh.expensetracker.model.Users;
 import com.ritesh.expensetracker.repository.UsersRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.regex.Pattern;
 
+// Listing users may be served by the read replica (see DataSourceRoutingConfig);
+// registration and deletion check and write on the primary.
 @Service
 public class AuthService {
 
+    private static final Pattern GMAIL_ADDRESS = Pattern.compile("^[A-Za-z0-9+_.-]+@gmail\\.com$");
+
     @Autowired
     private UsersRepository usersRepository;
 
+    @Autowired
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${auth.users.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${auth.users.page.max-size:500}")
+    private int maxPageSize;
+
     //Register User
+    // Insert-or-conflict on the unique index users.email. The existence query only runs for
+    // emails the filter has probably seen, so a new address costs a single INSERT.
     public Users registerUser(Users user) {
+        validateNewUser(user);
+
+        if (registeredEmailFilter.mightContain(user.getEmail()) && usersRepository.existsByEmail(user.getEmail())) {
+            throw new IllegalArgumentException("Email already exists.");
+        }
+
+        Users saved;
+        try {
+            saved = usersRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // Registered concurrently; the unique index decided
+            registeredEmailFilter.add(user.getEmail());
+            throw new IllegalArgumentException("Email already exists.");
+        }
+        registeredEmailFilter.add(saved.getEmail());
+        return saved;
+    }
+
+    // Validate a user before insert (shared with the batch path). Every other column is checked
+    // here, so a constraint violation on insert can only be the unique email.
+    public void validateNewUser(Users user) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null.");
+        }
         if (user.getEmail() == null || user.getEmail().isEmpty()) {
             throw new IllegalArgumentException("Email cannot be null or empty.");
         }
 
         // Gmail validation BEFORE touching DB
-        if (!user.getEmail().matches("^[A-Za-z0-9+_.-]+@gmail\\.com$")) {
+        if (!GMAIL_ADDRESS.matcher(user.getEmail()).matches()) {
             throw new IllegalArgumentException("We only accept Gmail addresses.");
         }
+        if (user.getName() == null || user.getName().isBlank()) {
+            throw new IllegalArgumentException("Name is required.");
+        }
+        if (user.getPassword() == null || user.getPassword().isEmpty()) {
+            throw new IllegalArgumentException("Password is required.");
+        }
+    }
 
-        // Duplicate check after format validation
-        if (usersRepository.existsByEmail(user.getEmail())) {
-            throw new IllegalArgumentException("Email already exists.");
+    // Get one page of users (id, name, email) ordered by email, starting after the given cursor
+    @Transactional(readOnly = true)
+    public CursorPage<UserSummary> getUserPage(String emailPrefix, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
         }
+        String prefix = emailPrefix == null || emailPrefix.isBlank() ? null : escapeLike(emailPrefix.trim());
 
-        return usersRepository.save(user);
-    }
+        // Fetch one extra row to find out whether another page exists
+        List<UserSummary> rows = usersRepository.findSummaryPage(decodeCursor(cursor), prefix,
+                PageRequest.of(0, pageSize + 1));
 
-    public List<Users> getAllUsers(){
-        return usersRepository.findAll();
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<UserSummary> page = rows.subList(0, pageSize);
+        return new CursorPage<>(page, encodeCursor(page.get(pageSize - 1).getEmail()));
     }
 
+    // One read-write transaction, so the existence check sees users registered just before.
+    // The user's expenses are removed by the database (see UserDeletedEvent); the caches
+    // holding them drop the user once the delete commits.
+    @Transactional
     public boolean deleteUser(Long id){
         if(usersRepository.existsById(id)){
             usersRepository.deleteById(id);
+            eventPublisher.publishEvent(new UserDeletedEvent(id));
             return true;
         }
         return false;
     }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static String encodeCursor(String lastEmail) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(lastEmail.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
 }
@@ -0,0 +1,138 @@
+package com.ritesh.expensetracker.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Inserts rows with one INSERT statement in JDBC batches, each batch in its own transaction, and
+// reports the generated id of every row. With rewriteBatchedStatements=true on the JDBC URL, MySQL
+// receives one multi-row INSERT per batch.
+// A batch that fails, or for which the driver does not return one generated id per row, is rolled
+// back and retried row by row, so only the rows that fail on their own are reported as failed.
+// Used by the bulk expense import and the batch registration.
+final class BatchInserter<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchInserter.class);
+
+    // Sets the INSERT's parameters from one row
+    interface Binder<T> {
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    // Outcome of each row, by its index in the caller's list
+    interface Outcome {
+        void created(int index, long id);
+
+        void failed(int index, DataAccessException e);
+
+        // Once per batch, after its rows are committed, with the indexes of the rows created
+        // (for a batch retried row by row, after its last row)
+        default void committed(List<Integer> indexes) {
+        }
+    }
+
+    private final String name;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String insertSql;
+    private final int batchSize;
+    private final Binder<T> binder;
+
+    BatchInserter(String name, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                  String insertSql, int batchSize, Binder<T> binder) {
+        this.name = name;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.insertSql = insertSql;
+        this.batchSize = batchSize;
+        this.binder = binder;
+    }
+
+    // Insert rows.get(i) for every i in indexes, in that order
+    void insert(List<T> rows, List<Integer> indexes, Outcome outcome) {
+        for (int from = 0; from < indexes.size(); from += batchSize) {
+            List<Integer> chunk = indexes.subList(from, Math.min(from + batchSize, indexes.size()));
+            List<Long> ids;
+            try {
+                ids = transactionTemplate.execute(status -> insertBatch(rows, chunk));
+            } catch (DataAccessException e) {
+                logger.warn("{} batch of {} failed, retrying row by row: {}", name, chunk.size(), e.getMessage());
+                insertRowByRow(rows, chunk, outcome);
+                continue;
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                outcome.created(chunk.get(i), ids.get(i));
+            }
+            outcome.committed(chunk);
+        }
+    }
+
+    private List<Long> insertBatch(List<T> rows, List<Integer> chunk) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        binder.bind(ps, rows.get(chunk.get(i)));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != chunk.size()) {
+            // A DataAccessException: rolls the batch back and sends it to the row-by-row retry
+            throw new IncorrectResultSizeDataAccessException("Expected " + chunk.size() + " generated ids but got "
+                    + keys.size(), chunk.size(), keys.size());
+        }
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Map<String, Object> key : keys) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    private void insertRowByRow(List<T> rows, List<Integer> chunk, Outcome outcome) {
+        List<Integer> created = new ArrayList<>();
+        for (int index : chunk) {
+            T row = rows.get(index);
+            long id;
+            try {
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS);
+                    binder.bind(ps, row);
+                    return ps;
+                }, keyHolder));
+                id = keyHolder.getKey().longValue();
+            } catch (DataAccessException e) {
+                outcome.failed(index, e);
+                continue;
+            }
+            outcome.created(index, id);
+            created.add(index);
+        }
+        if (!created.isEmpty()) {
+            outcome.committed(created);
+        }
+    }
+}
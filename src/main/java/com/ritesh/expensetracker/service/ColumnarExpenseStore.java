@@ -0,0 +1,428 @@
+package com.ritesh.expensetracker.service;
+
+import com.ritesh.expensetracker.model.Expense;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+
+// Read-optimized copy of the expenses table held in primitive columns:
+// - amounts in cents (long)
+// - categories dictionary-encoded to int ids
+// That is 20 bytes per row in the columns and 24 to 48 in the id index (an open-addressing table
+// kept at most half full), up to about 90 with the columns' growth headroom, against several
+// hundred for a JPA entity.
+// Aggregations are allocation-free scans over the arrays. Large scans are split across the
+// common ForkJoin pool once the row count reaches analytics.columnar.parallel-threshold.
+//
+// Rows are partitioned by user: each user has their own columns, so every aggregation scans
+// that user's rows only, however many users there are.
+//
+// Loaded once at startup with a streaming JDBC query and kept current from ExpenseChangeEvent.
+// The load replaces anything applied before it: those changes are committed, so the query sees them.
+// Deleted rows are tombstoned (category id -1) and compacted away once they pass a quarter of the rows.
+// Enable with analytics.columnar.enabled=true.
+@Service
+@ConditionalOnProperty(name = "analytics.columnar.enabled", havingValue = "true")
+public class ColumnarExpenseStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarExpenseStore.class);
+
+    private static final int DELETED = -1;
+    private static final int CHUNK_SIZE = 1 << 16;
+    // Most users have few expenses; columns start small and double as needed
+    private static final int INITIAL_CAPACITY = 16;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${analytics.columnar.parallel-threshold:1000000}")
+    private int parallelThreshold;
+
+    private final StampedLock lock = new StampedLock();
+    private final Map<Long, Columns> columnsByUser = new HashMap<>();
+    private long rowCount;
+
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long startTime = System.currentTimeMillis();
+        JdbcTemplate streamingTemplate = new JdbcTemplate(dataSource);
+        // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the result
+        streamingTemplate.setFetchSize(Integer.MIN_VALUE);
+
+        long stamp = lock.writeLock();
+        try {
+            columnsByUser.clear();
+            rowCount = 0;
+            // Archived rows are loaded too, so every scan covers the whole history
+            streamingTemplate.query("SELECT user_id, id, amount, category FROM expenses "
+                            + "UNION ALL SELECT user_id, id, amount, category FROM expenses_archive",
+                    (RowCallbackHandler) rs -> columnsFor(rs.getLong(1)).append(rs.getLong(2),
+                            Math.round(rs.getDouble(3) * 100), rs.getString(4)));
+            loaded = true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        logger.info("Columnar expense store loaded {} rows for {} users in {} ms",
+                rowCount, columnsByUser.size(), System.currentTimeMillis() - startTime);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Write-through: apply committed changes to the owner's columns
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChange(ExpenseChangeEvent event) {
+        long stamp = lock.writeLock();
+        try {
+            for (Expense expense : event.getRemoved()) {
+                Columns columns = columnsByUser.get(expense.getUserId());
+                if (columns != null) {
+                    columns.remove(expense.getId());
+                }
+            }
+            for (Expense expense : event.getAdded()) {
+                Columns columns = columnsFor(expense.getUserId());
+                columns.remove(expense.getId());
+                columns.append(expense.getId(), Math.round(expense.getAmount() * 100), expense.getCategory());
+            }
+            for (Expense expense : event.getRemoved()) {
+                Columns columns = columnsByUser.get(expense.getUserId());
+                if (columns != null && columns.deletedRows > columns.size / 4 && columns.deletedRows > 1024) {
+                    columns.compact();
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        long stamp = lock.writeLock();
+        try {
+            Columns columns = columnsByUser.remove(event.getUserId());
+            if (columns != null) {
+                rowCount -= columns.size - columns.deletedRows;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public double getTotalAmount(Long userId) {
+        long stamp = lock.readLock();
+        try {
+            Columns columns = columnsByUser.get(userId);
+            return columns == null ? 0 : columns.scan(columns::sumRange) / 100.0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public double getTotalAmountForCategory(Long userId, String category) {
+        long stamp = lock.readLock();
+        try {
+            Columns columns = columnsByUser.get(userId);
+            Integer categoryId = columns == null ? null : columns.categoryDictionary.get(category);
+            if (categoryId == null) {
+                return 0;
+            }
+            int id = categoryId;
+            return columns.scan((from, to) -> columns.sumCategoryRange(id, from, to)) / 100.0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Map<String, Double> getCategoryTotals(Long userId) {
+        long stamp = lock.readLock();
+        try {
+            Map<String, Double> result = new HashMap<>();
+            Columns columns = columnsByUser.get(userId);
+            if (columns == null) {
+                return result;
+            }
+            long[] totals = columns.groupByCategory();
+            for (int i = 0; i < totals.length; i++) {
+                if (columns.categoryRowCounts[i] > 0) {
+                    result.put(columns.categoryNames.get(i), totals[i] / 100.0);
+                }
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Called with the write lock held
+    private Columns columnsFor(long userId) {
+        return columnsByUser.computeIfAbsent(userId, id -> new Columns());
+    }
+
+    private interface RangeScan {
+        long apply(int from, int to);
+    }
+
+    // One user's rows. Reads need the store's read lock, mutations its write lock.
+    private final class Columns {
+
+        // Columns, valid for rows [0, size)
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private long[] amountCents = new long[INITIAL_CAPACITY];
+        private int[] categoryIds = new int[INITIAL_CAPACITY];
+        private int size;
+        private int deletedRows;
+
+        private LongIntHashMap rowById = new LongIntHashMap();
+        private final Map<String, Integer> categoryDictionary = new HashMap<>();
+        private final List<String> categoryNames = new ArrayList<>();
+        private int[] categoryRowCounts = new int[4];
+
+        // --- scans ---
+
+        private long scan(RangeScan rangeScan) {
+            if (size < parallelThreshold) {
+                return rangeScan.apply(0, size);
+            }
+            int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            int rows = size;
+            return IntStream.range(0, chunks).parallel()
+                    .mapToLong(chunk -> rangeScan.apply(chunk * CHUNK_SIZE, Math.min(rows, (chunk + 1) * CHUNK_SIZE)))
+                    .sum();
+        }
+
+        private long sumRange(int from, int to) {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                if (categoryIds[i] != DELETED) {
+                    sum += amountCents[i];
+                }
+            }
+            return sum;
+        }
+
+        private long sumCategoryRange(int categoryId, int from, int to) {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                if (categoryIds[i] == categoryId) {
+                    sum += amountCents[i];
+                }
+            }
+            return sum;
+        }
+
+        private long[] groupByCategory() {
+            int categories = categoryNames.size();
+            if (size < parallelThreshold) {
+                return groupByCategoryRange(categories, 0, size);
+            }
+            int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            int rows = size;
+            return IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> groupByCategoryRange(categories, chunk * CHUNK_SIZE,
+                            Math.min(rows, (chunk + 1) * CHUNK_SIZE)))
+                    .reduce(new long[categories], (a, b) -> {
+                        long[] merged = new long[categories];
+                        for (int i = 0; i < categories; i++) {
+                            merged[i] = a[i] + b[i];
+                        }
+                        return merged;
+                    });
+        }
+
+        private long[] groupByCategoryRange(int categories, int from, int to) {
+            long[] totals = new long[categories];
+            for (int i = from; i < to; i++) {
+                int categoryId = categoryIds[i];
+                if (categoryId != DELETED) {
+                    totals[categoryId] += amountCents[i];
+                }
+            }
+            return totals;
+        }
+
+        // --- mutation ---
+
+        private void append(long id, long cents, String category) {
+            if (size == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                amountCents = Arrays.copyOf(amountCents, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+            }
+            ids[size] = id;
+            amountCents[size] = cents;
+            categoryIds[size] = categoryId(category);
+            categoryRowCounts[categoryIds[size]]++;
+            rowById.put(id, size);
+            size++;
+            rowCount++;
+        }
+
+        private void remove(Long id) {
+            if (id == null) {
+                return;
+            }
+            int row = rowById.remove(id);
+            if (row >= 0) {
+                categoryRowCounts[categoryIds[row]]--;
+                categoryIds[row] = DELETED;
+                deletedRows++;
+                rowCount--;
+            }
+        }
+
+        private int categoryId(String category) {
+            Integer id = categoryDictionary.get(category);
+            if (id == null) {
+                id = categoryNames.size();
+                categoryDictionary.put(category, id);
+                categoryNames.add(category);
+                if (id == categoryRowCounts.length) {
+                    categoryRowCounts = Arrays.copyOf(categoryRowCounts, id * 2);
+                }
+            }
+            return id;
+        }
+
+        // Moves the live rows down and rebuilds the id index for them, dropping its tombstones
+        private void compact() {
+            LongIntHashMap compacted = new LongIntHashMap(size - deletedRows);
+            int target = 0;
+            for (int row = 0; row < size; row++) {
+                if (categoryIds[row] == DELETED) {
+                    continue;
+                }
+                if (target != row) {
+                    ids[target] = ids[row];
+                    amountCents[target] = amountCents[row];
+                    categoryIds[target] = categoryIds[row];
+                }
+                compacted.put(ids[target], target);
+                target++;
+            }
+            rowById = compacted;
+            logger.debug("Columnar expense store compacted {} rows to {}", size, target);
+            size = target;
+            deletedRows = 0;
+        }
+    }
+
+    // Open-addressing long -> int map, so the id index does not box every key.
+    // Removed keys leave tombstones; once live keys and tombstones fill half the table it is
+    // rehashed, at twice the capacity only if the live keys fill a quarter of it, so deleting
+    // and re-adding rows does not grow the table.
+    private static final class LongIntHashMap {
+        private static final long EMPTY = Long.MIN_VALUE;
+        private static final long REMOVED = Long.MIN_VALUE + 1;
+
+        private long[] keys;
+        private int[] values;
+        // Live keys, and live keys plus tombstones
+        private int size;
+        private int used;
+
+        LongIntHashMap() {
+            this(0);
+        }
+
+        LongIntHashMap(int expectedSize) {
+            allocate(capacityFor(expectedSize));
+        }
+
+        // Smallest power of two keeping the expected keys under a quarter of the table
+        private static int capacityFor(int expectedSize) {
+            int capacity = INITIAL_CAPACITY;
+            while (capacity < expectedSize * 4L) {
+                capacity <<= 1;
+            }
+            return capacity;
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            values = new int[capacity];
+            size = 0;
+            used = 0;
+        }
+
+        void put(long key, int value) {
+            if ((used + 1) * 2 > keys.length) {
+                rehash();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            int firstRemoved = -1;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                if (keys[slot] == REMOVED && firstRemoved < 0) {
+                    firstRemoved = slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (firstRemoved >= 0) {
+                slot = firstRemoved;
+            } else {
+                used++;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+
+        // Removes the key and returns its value, or -1 if absent
+        int remove(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    keys[slot] = REMOVED;
+                    size--;
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            allocate((size + 1) * 4 > oldKeys.length ? oldKeys.length * 2 : oldKeys.length);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY && oldKeys[i] != REMOVED) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
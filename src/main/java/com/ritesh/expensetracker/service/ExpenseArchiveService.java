@@ -0,0 +1,137 @@
+package com.ritesh.expensetracker.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hot/cold tiering of expenses.
+// - Expenses dated before the hot range (the current month and the expenses.archive.horizon-months - 1
+//   months before it) are moved from expenses to expenses_archive in batches of expenses.archive.batch-size.
+// - Each batch adds its rows to expense_monthly_rollups (user, month, category) and deletes them
+//   from expenses in the same transaction, so hot rows + rollups always cover every expense exactly once.
+// - The hot range starts on the first of a month, so a month is either entirely in the rollups or
+//   entirely in the hot table, apart from back-dated expenses created after their month was archived;
+//   those stay hot until the next run moves them.
+// Whole-history totals read hot rows plus rollups (see ExpenseRepository); date windows read hot rows only.
+// Archived expenses are read-only. Enable with expenses.archive.enabled=true.
+@Service
+public class ExpenseArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseArchiveService.class);
+
+    // The AI insight endpoints look back up to 3 months (plus the current one) from the hot table
+    static final int MIN_HORIZON_MONTHS = 4;
+
+    // Oldest rows first along idx_expenses_date, so only rows that are moved are read. Moved rows are
+    // deleted, so every batch starts again from the front of the index. Batches run at READ COMMITTED:
+    // the lock covers the returned rows only (no next-key or gap locks), keeping them from changing
+    // until they are moved without blocking inserts or updates of hot rows.
+    private static final String SELECT_SQL = "SELECT id, user_id, amount, category, expense_date FROM expenses "
+            + "WHERE expense_date < ? ORDER BY expense_date, id LIMIT ? FOR UPDATE";
+    private static final String COPY_SQL = "INSERT INTO expenses_archive (id, user_id, description, amount, category, expense_date) "
+            + "SELECT id, user_id, description, amount, category, expense_date FROM expenses WHERE id IN (%s)";
+    // VALUES(col) rather than a row alias, so the statement also runs on H2 in MySQL mode (tests)
+    private static final String ROLLUP_SQL = "INSERT INTO expense_monthly_rollups (user_id, month_start, category, total, expense_count) "
+            + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "total = total + VALUES(total), expense_count = expense_count + VALUES(expense_count)";
+    private static final String DELETE_SQL = "DELETE FROM expenses WHERE id IN (%s)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${expenses.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${expenses.archive.horizon-months:24}")
+    private int horizonMonths;
+
+    @Value("${expenses.archive.batch-size:1000}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    private void initialize() {
+        if (horizonMonths < MIN_HORIZON_MONTHS) {
+            throw new IllegalArgumentException("expenses.archive.horizon-months must be at least " + MIN_HORIZON_MONTHS);
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    @Scheduled(cron = "${expenses.archive.cron:0 30 3 * * *}")
+    public void archiveScheduled() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    // Move every expense dated before the hot range, one short transaction per batch
+    public long archive() {
+        LocalDate hotRangeStart = getHotRangeStart();
+        long startTime = System.currentTimeMillis();
+        long moved = 0;
+        while (true) {
+            int batch = transactionTemplate.execute(status -> archiveBatch(hotRangeStart));
+            if (batch == 0) {
+                break;
+            }
+            moved += batch;
+        }
+        logger.info("Archived {} expenses dated before {} in {} ms", moved, hotRangeStart, System.currentTimeMillis() - startTime);
+        return moved;
+    }
+
+    // First day of the oldest month kept in the expenses table
+    public LocalDate getHotRangeStart() {
+        return YearMonth.now().minusMonths(horizonMonths - 1).atDay(1);
+    }
+
+    // Returns the number of rows moved
+    private int archiveBatch(LocalDate hotRangeStart) {
+        List<Object> ids = new ArrayList<>(batchSize);
+        // (user, month, category) -> {cents, count}
+        Map<List<Object>, long[]> rollups = new HashMap<>();
+        jdbcTemplate.query(SELECT_SQL, (RowCallbackHandler) rs -> {
+            ids.add(rs.getLong(1));
+            List<Object> key = List.of(rs.getLong(2), YearMonth.from(rs.getObject(5, LocalDate.class)).atDay(1), rs.getString(4));
+            long[] bucket = rollups.computeIfAbsent(key, k -> new long[2]);
+            bucket[0] += Math.round(rs.getDouble(3) * 100);
+            bucket[1]++;
+        }, hotRangeStart, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Object[] idArgs = ids.toArray();
+        jdbcTemplate.update(COPY_SQL.formatted(placeholders), idArgs);
+        List<Object[]> rollupArgs = new ArrayList<>(rollups.size());
+        rollups.forEach((key, bucket) ->
+                rollupArgs.add(new Object[] {key.get(0), key.get(1), key.get(2), BigDecimal.valueOf(bucket[0], 2), bucket[1]}));
+        jdbcTemplate.batchUpdate(ROLLUP_SQL, rollupArgs);
+        jdbcTemplate.update(DELETE_SQL.formatted(placeholders), idArgs);
+        return ids.size();
+    }
+}
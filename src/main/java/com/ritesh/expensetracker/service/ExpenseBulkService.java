@@ -0,0 +1,112 @@
+package com.ritesh.expensetracker.service;
+
+import com.ritesh.expensetracker.model.BulkInsertResult;
+import com.ritesh.expensetracker.model.Expense;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class ExpenseBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseBulkService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO expenses (user_id, description, amount, category, expense_date) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${expenses.bulk.batch-size:500}")
+    private int batchSize;
+
+    @Value("${expenses.bulk.max-items:100000}")
+    private int maxItems;
+
+    private BatchInserter<Expense> batchInserter;
+
+    @PostConstruct
+    private void initializeBatchInserter() {
+        this.batchInserter = new BatchInserter<>("Bulk expense insert", jdbcTemplate, transactionManager,
+                INSERT_SQL, batchSize, ExpenseBulkService::bind);
+    }
+
+    // Validate every item up front, then insert the valid ones in JDBC batches (see BatchInserter):
+    // each batch commits in its own transaction, and a batch that fails is retried row by row,
+    // so only the offending rows are reported as FAILED.
+    // Every expense is created for the given user, whatever owner the request body names.
+    public BulkInsertResult createExpenses(Long userId, List<Expense> expenses) {
+        if (expenses.size() > maxItems) {
+            throw new IllegalArgumentException("At most " + maxItems + " expenses can be submitted at once");
+        }
+
+        BulkInsertResult result = new BulkInsertResult(expenses.size());
+        List<Integer> validIndexes = new ArrayList<>(expenses.size());
+        for (int i = 0; i < expenses.size(); i++) {
+            try {
+                expenseService.validateNewExpense(expenses.get(i));
+                expenses.get(i).setUserId(userId);
+                validIndexes.add(i);
+            } catch (IllegalArgumentException e) {
+                result.invalid(i, e.getMessage());
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        batchInserter.insert(expenses, validIndexes, new BatchInserter.Outcome() {
+            @Override
+            public void created(int index, long id) {
+                expenses.get(index).setId(id);
+                result.created(index, id);
+            }
+
+            @Override
+            public void failed(int index, DataAccessException e) {
+                result.failed(index, e.getMostSpecificCause().getMessage());
+            }
+
+            @Override
+            public void committed(List<Integer> indexes) {
+                List<Expense> created = new ArrayList<>(indexes.size());
+                for (int index : indexes) {
+                    created.add(ExpenseService.copyOf(expenses.get(index)));
+                }
+                eventPublisher.publishEvent(ExpenseChangeEvent.created(created));
+            }
+        });
+
+        logger.info("Bulk insert of {} expenses: {} created, {} invalid, {} failed in {} ms",
+                expenses.size(), result.getCreated(), result.getInvalid(), result.getFailed(),
+                System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    private static void bind(PreparedStatement ps, Expense expense) throws SQLException {
+        ps.setLong(1, expense.getUserId());
+        ps.setString(2, expense.getDescription());
+        ps.setDouble(3, expense.getAmount());
+        ps.setString(4, expense.getCategory());
+        ps.setObject(5, expense.getDate());
+    }
+}
@@ -0,0 +1,41 @@
+package com.ritesh.expensetracker.service;
+
+import com.ritesh.expensetracker.model.Expense;
+
+import java.util.List;
+
+// Published by the expense write paths after a change has been committed. Listeners are
+// @TransactionalEventListener(fallbackExecution = true): inside a transaction they run once it
+// commits and never if it rolls back; outside one they run straight away.
+// An update is reported as the old row removed and the new row added.
+// The Expense objects are detached copies and must not be modified.
+public class ExpenseChangeEvent {
+
+    private final List<Expense> removed;
+    private final List<Expense> added;
+
+    public ExpenseChangeEvent(List<Expense> removed, List<Expense> added) {
+        this.removed = removed;
+        this.added = added;
+    }
+
+    public static ExpenseChangeEvent created(List<Expense> expenses) {
+        return new ExpenseChangeEvent(List.of(), expenses);
+    }
+
+    public static ExpenseChangeEvent updated(Expense before, Expense after) {
+        return new ExpenseChangeEvent(List.of(before), List.of(after));
+    }
+
+    public static ExpenseChangeEvent deleted(Expense expense) {
+        return new ExpenseChangeEvent(List.of(expense), List.of());
+    }
+
+    public List<Expense> getRemoved() {
+        return removed;
+    }
+
+    public List<Expense> getAdded() {
+        return added;
+    }
+}
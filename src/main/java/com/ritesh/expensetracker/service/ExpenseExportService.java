@@ -0,0 +1,123 @@
+package com.ritesh.expensetracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ritesh.expensetracker.model.ArchivedExpense;
+import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.repository.ArchivedExpenseRepository;
+import com.ritesh.expensetracker.repository.ExpenseRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class ExpenseExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseExportService.class);
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Write every expense of the user to the output stream, one row at a time: archived
+    // expenses first (see ExpenseArchiveService), then the hot table, each in id order.
+    // Each entity is detached once written so the persistence context stays empty
+    // and heap use does not grow with the table size.
+    @Transactional(readOnly = true)
+    public long export(Long userId, Format format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writer.write("id,description,amount,category,date\n");
+        }
+
+        long count = 0;
+        long startTime = System.currentTimeMillis();
+        // MySQL allows one streaming result per connection, so the second query starts after the first is closed
+        try (Stream<ArchivedExpense> archived = archivedExpenseRepository.streamByUserIdOrderById(userId)) {
+            Iterator<ArchivedExpense> iterator = archived.iterator();
+            while (iterator.hasNext()) {
+                ArchivedExpense expense = iterator.next();
+                writeRow(writer, format, expense.toExpense());
+                entityManager.detach(expense);
+                count++;
+            }
+        }
+        try (Stream<Expense> expenses = expenseRepository.streamByUserIdOrderById(userId)) {
+            Iterator<Expense> iterator = expenses.iterator();
+            while (iterator.hasNext()) {
+                Expense expense = iterator.next();
+                writeRow(writer, format, expense);
+                entityManager.detach(expense);
+                count++;
+            }
+        }
+        writer.flush();
+
+        logger.info("Exported {} expenses as {} in {} ms", count, format, System.currentTimeMillis() - startTime);
+        return count;
+    }
+
+    private void writeRow(Writer writer, Format format, Expense expense) throws IOException {
+        if (format == Format.CSV) {
+            writeCsvRow(writer, expense);
+        } else {
+            writer.write(objectMapper.writeValueAsString(expense));
+            writer.write('\n');
+        }
+    }
+
+    private void writeCsvRow(Writer writer, Expense expense) throws IOException {
+        writer.write(String.valueOf(expense.getId()));
+        writer.write(',');
+        writeCsvField(writer, expense.getDescription());
+        writer.write(',');
+        // Plain notation: Double.toString switches to 1.0E7 from ten million up
+        writer.write(BigDecimal.valueOf(expense.getAmount()).toPlainString());
+        writer.write(',');
+        writeCsvField(writer, expense.getCategory());
+        writer.write(',');
+        writeCsvField(writer, String.valueOf(expense.getDate()));
+        writer.write('\n');
+    }
+
+    // RFC 4180 quoting: only quote fields containing a separator, quote or line break
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean needsQuotes = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!needsQuotes) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
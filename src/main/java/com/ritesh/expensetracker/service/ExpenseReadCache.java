@@ -0,0 +1,78 @@
+package com.ritesh.expensetracker.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ritesh.expensetracker.config.CacheConfig;
+import com.ritesh.expensetracker.model.Expense;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps the expense read caches consistent with writes and exposes their statistics.
+// Only the entries a change can affect are evicted: the ids involved and the
+// categories of both the old and the new rows, for the owning user.
+// Keys are the SimpleKey(userId, id) / SimpleKey(userId, category) built by @Cacheable.
+@Component
+public class ExpenseReadCache {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChange(ExpenseChangeEvent event) {
+        Cache byId = cacheManager.getCache(CacheConfig.EXPENSE_BY_ID);
+        Cache categoryTotals = cacheManager.getCache(CacheConfig.CATEGORY_TOTALS);
+        evict(event.getRemoved(), byId, categoryTotals);
+        evict(event.getAdded(), byId, categoryTotals);
+    }
+
+    // The keys of a deleted user's entries are not known (archived categories included), and
+    // SimpleKey does not expose its parts, so both caches are cleared; deleting a user is rare
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        for (String name : List.of(CacheConfig.EXPENSE_BY_ID, CacheConfig.CATEGORY_TOTALS)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private void evict(List<Expense> expenses, Cache byId, Cache categoryTotals) {
+        for (Expense expense : expenses) {
+            if (byId != null && expense.getId() != null) {
+                byId.evict(new SimpleKey(expense.getUserId(), expense.getId()));
+            }
+            if (categoryTotals != null) {
+                categoryTotals.evict(new SimpleKey(expense.getUserId(), expense.getCategory()));
+            }
+        }
+    }
+
+    // Hit/miss/eviction statistics per cache
+    public Map<String, Map<String, Object>> getStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (!(cache instanceof CaffeineCache caffeineCache)) {
+                continue;
+            }
+            CacheStats stats = caffeineCache.getNativeCache().stats();
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("size", caffeineCache.getNativeCache().estimatedSize());
+            values.put("hitCount", stats.hitCount());
+            values.put("missCount", stats.missCount());
+            values.put("hitRate", stats.hitRate());
+            values.put("evictionCount", stats.evictionCount());
+            statistics.put(name, values);
+        }
+        return statistics;
+    }
+}
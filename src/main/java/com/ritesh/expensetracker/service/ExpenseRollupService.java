@@ -0,0 +1,331 @@
+package com.ritesh.expensetracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ritesh.expensetracker.model.CategoryTotal;
+import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.model.ExpenseContent;
+import com.ritesh.expensetracker.model.MonthlyTotal;
+import com.ritesh.expensetracker.repository.ExpenseMonthlyRollupRepository;
+import com.ritesh.expensetracker.repository.ExpenseRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Keeps running per-category, per-day and per-month aggregates of each user's expenses.
+// - A user's rollups are loaded the first time they are read, from the user's hot rows
+//   (idx_expenses_user, idx_expenses_user_category) and archived monthly rollups
+//   (see ExpenseArchiveService), so the cost depends on that user's recent rows only.
+//   Per-day totals cover the hot range only; category, month and overall totals cover everything.
+//   At most analytics.rollup.max-users users are kept; idle ones are dropped after
+//   analytics.rollup.idle-minutes and reloaded on their next read.
+// - Every committed write is applied as a delta to the owner's rollups if they are loaded
+//   (see ExpenseChangeEvent), so reads only touch the rollups (O(categories + days)) and are current.
+// - The periodic reconcile reloads the users currently held and logs any drift.
+// Amounts are kept in cents so that adding and subtracting deltas is exact.
+// The content checksum is the wrapping sum of a hash of each hot row (id, amount, category, date,
+// description) and of each archived month, so deltas keep it exact too, and it changes whenever
+// any row's content does, not only when the row count or total changes.
+@Service
+public class ExpenseRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseRollupService.class);
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ExpenseMonthlyRollupRepository expenseMonthlyRollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate snapshotTemplate;
+
+    private final Cache<Long, Rollups> rollupsByUser;
+    // Versions are drawn from one sequence, so a reloaded user never reuses an earlier version
+    private final AtomicLong versions = new AtomicLong();
+    private final ConcurrentHashMap<Long, CompletableFuture<Void>> reconcileInFlight = new ConcurrentHashMap<>();
+
+    public ExpenseRollupService(@Value("${analytics.rollup.max-users:10000}") long maxUsers,
+                                @Value("${analytics.rollup.idle-minutes:60}") long idleMinutes) {
+        this.rollupsByUser = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+    }
+
+    // Not read-only, so the snapshot is taken on the primary even when a read replica is
+    // configured: deltas from committed writes are applied on top of it, and a lagging replica
+    // would lose the writes it has not replayed yet until the next reconcile
+    @PostConstruct
+    private void initializeSnapshotTemplate() {
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    // Apply the change as a delta: subtract removed rows, add new ones.
+    // Users whose rollups are not loaded are skipped; their next read loads current totals.
+    // A write that commits while its owner's rollups are being loaded may be missed until the next reconcile.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChange(ExpenseChangeEvent event) {
+        for (Expense expense : event.getRemoved()) {
+            apply(expense, -1);
+        }
+        for (Expense expense : event.getAdded()) {
+            apply(expense, 1);
+        }
+    }
+
+    // The user's rows are gone; their next read loads empty totals under a new version
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        rollupsByUser.invalidate(event.getUserId());
+    }
+
+    private void apply(Expense expense, int sign) {
+        Rollups rollups = rollupsByUser.getIfPresent(expense.getUserId());
+        if (rollups != null) {
+            rollups.apply(expense, sign);
+            rollups.version = versions.incrementAndGet();
+        }
+    }
+
+    // Reload every user currently held and replace their in-memory state.
+    // Writes that land while the GROUP BY queries run may be counted twice or not at all
+    // until the next reconcile; the drift log line makes that visible.
+    @Scheduled(fixedDelayString = "${analytics.rollup.reconcile-interval-ms:600000}",
+               initialDelayString = "${analytics.rollup.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        long startTime = System.currentTimeMillis();
+        List<Long> userIds = List.copyOf(rollupsByUser.asMap().keySet());
+        for (Long userId : userIds) {
+            reconcile(userId);
+        }
+        logger.info("Expense rollups reconciled for {} users in {} ms", userIds.size(), System.currentTimeMillis() - startTime);
+    }
+
+    public void reconcile(Long userId) {
+        Rollups fresh = load(userId);
+        Rollups previous = rollupsByUser.asMap().put(userId, fresh);
+        if (previous != null && (previous.total.cents() != fresh.total.cents() || previous.total.count() != fresh.total.count())) {
+            logger.warn("Expense rollups drifted for user {}: in-memory total={} cents/{} rows, database total={} cents/{} rows",
+                    userId, previous.total.cents(), previous.total.count(), fresh.total.cents(), fresh.total.count());
+        }
+    }
+
+    // Reconcile one user in the background; callers arriving while it runs share it
+    public CompletableFuture<Void> reconcileAsync(Long userId) {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        CompletableFuture<Void> running = reconcileInFlight.putIfAbsent(userId, pending);
+        if (running != null) {
+            return running;
+        }
+        Thread.ofVirtual().name("rollup-reconcile-" + userId).start(() -> {
+            try {
+                reconcile(userId);
+                pending.complete(null);
+            } catch (RuntimeException e) {
+                logger.error("Expense rollup reconcile failed for user {}", userId, e);
+                pending.completeExceptionally(e);
+            } finally {
+                reconcileInFlight.remove(userId, pending);
+            }
+        });
+        return pending;
+    }
+
+    // The queries share one snapshot, so an archive batch moving rows from the hot
+    // table to the monthly rollups in between cannot be counted twice or missed
+    private Rollups load(Long userId) {
+        return snapshotTemplate.execute(status -> loadSnapshot(userId));
+    }
+
+    private Rollups loadSnapshot(Long userId) {
+        long startTime = System.currentTimeMillis();
+        Rollups fresh = new Rollups();
+        for (CategoryTotal row : expenseRepository.sumAmountGroupedByCategory(userId)) {
+            fresh.categories.computeIfAbsent(row.getCategory(), k -> new Bucket())
+                    .add(toCents(row.getTotal()), row.getCount());
+        }
+        for (ExpenseContent row : expenseRepository.findContentByUserId(userId)) {
+            long cents = toCents(row.getAmount());
+            fresh.days.computeIfAbsent(row.getDate(), k -> new Bucket()).add(cents, 1);
+            fresh.months.computeIfAbsent(YearMonth.from(row.getDate()), k -> new Bucket()).add(cents, 1);
+            fresh.total.add(cents, 1);
+            fresh.checksum.add(rowHash(row.getId(), cents, row.getCategory(), row.getDate(), row.getDescription()));
+        }
+        for (MonthlyTotal row : expenseMonthlyRollupRepository.sumTotalGroupedByMonth(userId)) {
+            long cents = toCents(row.getTotal());
+            fresh.months.computeIfAbsent(YearMonth.from(row.getMonth()), k -> new Bucket()).add(cents, row.getCount());
+            fresh.total.add(cents, row.getCount());
+            fresh.checksum.add(hash(row.getMonth().toEpochDay(), cents, row.getCount()));
+        }
+        fresh.version = versions.incrementAndGet();
+        logger.debug("Expense rollups loaded for user {}: {} categories, {} days in {} ms",
+                userId, fresh.categories.size(), fresh.days.size(), System.currentTimeMillis() - startTime);
+        return fresh;
+    }
+
+    // Counter that changes whenever the user's rollups change (increasing across all users)
+    public long getVersion(Long userId) {
+        return current(userId).version;
+    }
+
+    // "rows:cents:checksum" of the user's expenses. Unlike the version it is stable across restarts,
+    // so it can stamp data that outlives the process. Any edit (amount, category, date, description),
+    // or replacing a row with another of the same amount, gives a different fingerprint; archiving
+    // rows changes it once their owner's rollups are reloaded.
+    public String getDataFingerprint(Long userId) {
+        Rollups current = current(userId);
+        return current.total.count() + ":" + current.total.cents() + ":" + Long.toHexString(current.checksum.sum());
+    }
+
+    public double getTotalAmount(Long userId) {
+        return current(userId).total.cents() / 100.0;
+    }
+
+    public long getTotalCount(Long userId) {
+        return current(userId).total.count();
+    }
+
+    public Map<String, Double> getCategoryTotals(Long userId) {
+        Map<String, Double> totals = new HashMap<>();
+        current(userId).categories.forEach((category, bucket) -> {
+            if (bucket.count() > 0) {
+                totals.put(category, bucket.cents() / 100.0);
+            }
+        });
+        return totals;
+    }
+
+    // Totals per month, oldest first
+    public Map<YearMonth, Double> getMonthlyTotals(Long userId) {
+        Map<YearMonth, Double> totals = new TreeMap<>();
+        current(userId).months.forEach((month, bucket) -> {
+            if (bucket.count() > 0) {
+                totals.put(month, bucket.cents() / 100.0);
+            }
+        });
+        return totals;
+    }
+
+    // Total spent on days strictly after the given day
+    public double getTotalAfter(Long userId, LocalDate day) {
+        long cents = 0;
+        for (Map.Entry<LocalDate, Bucket> entry : current(userId).days.entrySet()) {
+            if (entry.getKey().isAfter(day)) {
+                cents += entry.getValue().cents();
+            }
+        }
+        return cents / 100.0;
+    }
+
+    // Analytics summary in the shape served by /api/ai/analytics
+    public Map<String, Object> getAnalytics(Long userId) {
+        Map<String, Object> analytics = new HashMap<>();
+        long count = getTotalCount(userId);
+        if (count == 0) {
+            return analytics;
+        }
+
+        double totalAmount = getTotalAmount(userId);
+        analytics.put("totalAmount", totalAmount);
+        analytics.put("totalCount", (int) count);
+        analytics.put("averageAmount", totalAmount / count);
+        analytics.put("categoryTotals", getCategoryTotals(userId));
+        analytics.put("recentMonthTotal", getTotalAfter(userId, LocalDate.now().minusMonths(1)));
+        return analytics;
+    }
+
+    // Number of users whose rollups are in memory
+    public long getLoadedUsers() {
+        return rollupsByUser.estimatedSize();
+    }
+
+    private Rollups current(Long userId) {
+        return rollupsByUser.get(userId, this::load);
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    // Hash of one hot row's content; String.hashCode is specified, so the value is stable across restarts
+    private static long rowHash(Long id, long cents, String category, LocalDate date, String description) {
+        return hash(id, cents, Objects.hashCode(category), date.toEpochDay(), Objects.hashCode(description));
+    }
+
+    private static long hash(long... parts) {
+        long hash = 0x9e3779b97f4a7c15L;
+        for (long part : parts) {
+            hash = mix(hash + part);
+        }
+        return hash;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static class Rollups {
+        final Bucket total = new Bucket();
+        final ConcurrentHashMap<String, Bucket> categories = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<LocalDate, Bucket> days = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<YearMonth, Bucket> months = new ConcurrentHashMap<>();
+        final LongAdder checksum = new LongAdder();
+        volatile long version;
+
+        void apply(Expense expense, int sign) {
+            checksum.add(sign * rowHash(expense.getId(), toCents(expense.getAmount()), expense.getCategory(),
+                    expense.getDate(), expense.getDescription()));
+            long cents = sign * toCents(expense.getAmount());
+            total.add(cents, sign);
+            categories.computeIfAbsent(expense.getCategory(), k -> new Bucket()).add(cents, sign);
+            days.computeIfAbsent(expense.getDate(), k -> new Bucket()).add(cents, sign);
+            months.computeIfAbsent(YearMonth.from(expense.getDate()), k -> new Bucket()).add(cents, sign);
+        }
+    }
+
+    private static class Bucket {
+        private final LongAdder cents = new LongAdder();
+        private final LongAdder count = new LongAdder();
+
+        void add(long deltaCents, long deltaCount) {
+            cents.add(deltaCents);
+            count.add(deltaCount);
+        }
+
+        long cents() {
+            return cents.sum();
+        }
+
+        long count() {
+            return count.sum();
+        }
+    }
+}
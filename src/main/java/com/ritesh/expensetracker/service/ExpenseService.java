@@ -1,53 +1,219 @@
 package com.ritesh.expensetracker.service;
 
+import com.ritesh.expensetracker.config.CacheConfig;
+import com.ritesh.expensetracker.model.ArchivedExpense;
+import com.ritesh.expensetracker.model.CategoryTotal;
+import com.ritesh.expensetracker.model.CursorPage;
+import com.ritesh.expensetracker.model.DailyTotal;
 import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.model.ExpenseFilter;
+import com.ritesh.expensetracker.repository.ArchivedExpenseRepository;
 import com.ritesh.expensetracker.repository.ExpenseRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+// Every public method is timed as "expense.service" (tags class, method, exception).
+// Every method works on one user's expenses only; userId comes from the X-User-Id request header.
+// Totals cover archived expenses too (see ExpenseArchiveService); lists and date windows read the
+// hot table, and archived expenses cannot be updated or deleted.
+// Reads marked @Transactional(readOnly = true) go to the read replica when one is configured
+// (see DataSourceRoutingConfig) and may lag the primary slightly. Writes, and the cached reads that
+// a write evicts (an entry reloaded from a lagging replica would stay stale), use the primary.
 @Service
+@Timed(value = "expense.service", histogram = true)
 public class ExpenseService {
 
     @Autowired
     private ExpenseRepository expenseRepository;
 
-    // Get all expenses
-    public List<Expense> getAllExpenses() {
-        return expenseRepository.findAll();
+    @Autowired
+    private ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Only present when analytics.columnar.enabled=true
+    @Autowired(required = false)
+    private ColumnarExpenseStore columnarExpenseStore;
+
+    @Value("${expenses.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${expenses.page.max-size:500}")
+    private int maxPageSize;
+
+    // Get all of the user's expenses
+    @Transactional(readOnly = true)
+    public List<Expense> getAllExpenses(Long userId) {
+        return expenseRepository.findByUserId(userId);
+    }
+
+    // Get one page of expenses ordered by id, starting after the given cursor
+    @Transactional(readOnly = true)
+    public CursorPage<Expense> getExpensePage(Long userId, ExpenseFilter filter, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+
+        // Fetch one extra row to find out whether another page exists
+        List<Expense> rows = expenseRepository.findPage(
+                userId,
+                decodeCursor(cursor),
+                filter.getCategory(),
+                filter.getFrom(),
+                filter.getTo(),
+                filter.getMinAmount(),
+                filter.getMaxAmount(),
+                PageRequest.of(0, pageSize + 1));
+
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<Expense> page = rows.subList(0, pageSize);
+        return new CursorPage<>(page, encodeCursor(page.get(pageSize - 1).getId()));
+    }
+
+    // Get the n most recent expenses
+    @Transactional(readOnly = true)
+    public List<Expense> getLatestExpenses(Long userId, int n) {
+        return expenseRepository.findByUserIdOrderByDateDescIdDesc(userId, Limit.of(n));
+    }
+
+    // Get the n most recent expenses dated on or after the given day
+    @Transactional(readOnly = true)
+    public List<Expense> getLatestExpensesSince(Long userId, LocalDate from, int n) {
+        return expenseRepository.findByUserIdAndDateGreaterThanEqualOrderByDateDescIdDesc(userId, from, Limit.of(n));
     }
 
-    // Get expense by ID
-    public Expense getExpenseById(Long id) {
-        Optional<Expense> expense = expenseRepository.findById(id);
-        return expense.orElse(null);
+    // Get the n largest expenses
+    @Transactional(readOnly = true)
+    public List<Expense> getLargestExpenses(Long userId, int n) {
+        return expenseRepository.findByUserIdOrderByAmountDesc(userId, Limit.of(n));
     }
 
-    // Create new expense
-    public Expense createExpense(Expense expense) {
+    // Get the n largest expenses dated on or after the given day
+    @Transactional(readOnly = true)
+    public List<Expense> getLargestExpensesSince(Long userId, LocalDate from, int n) {
+        return expenseRepository.findByUserIdAndDateGreaterThanEqualOrderByAmountDesc(userId, from, Limit.of(n));
+    }
+
+    // Get the n largest / most recent expenses in any of the given categories
+    @Transactional(readOnly = true)
+    public List<Expense> getLargestExpensesInCategories(Long userId, Collection<String> categories, int n) {
+        return expenseRepository.findByUserIdAndCategoryInOrderByAmountDesc(userId, categories, Limit.of(n));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Expense> getLatestExpensesInCategories(Long userId, Collection<String> categories, int n) {
+        return expenseRepository.findByUserIdAndCategoryInOrderByDateDescIdDesc(userId, categories, Limit.of(n));
+    }
+
+    // Get every category name the user has used
+    @Transactional(readOnly = true)
+    public List<String> getCategories(Long userId) {
+        return expenseRepository.findDistinctCategories(userId);
+    }
+
+    // Get sum and count per category, for the given categories / since the given day
+    @Transactional(readOnly = true)
+    public List<CategoryTotal> getCategoryTotals(Long userId, Collection<String> categories) {
+        return expenseRepository.sumAmountGroupedByCategory(userId, categories);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CategoryTotal> getCategoryTotalsSince(Long userId, LocalDate from) {
+        return expenseRepository.sumAmountGroupedByCategorySince(userId, from);
+    }
+
+    // Get sum and count per day since the given day
+    @Transactional(readOnly = true)
+    public List<DailyTotal> getDailyTotalsSince(Long userId, LocalDate from) {
+        return expenseRepository.sumAmountGroupedByDateSince(userId, from);
+    }
+
+    // Get total amount spent on or after the given day
+    @Transactional(readOnly = true)
+    public double getTotalExpensesSince(Long userId, LocalDate from) {
+        return expenseRepository.sumAmountSince(userId, from);
+    }
+
+    // Get expense by ID, null unless it belongs to the user; falls back to the archive
+    // (cached under (userId, id); evicted by ExpenseReadCache on writes). Reads the primary, so a
+    // client reading back an expense it just created or updated sees it.
+    @Cacheable(cacheNames = CacheConfig.EXPENSE_BY_ID, unless = "#result == null")
+    public Expense getExpenseById(Long userId, Long id) {
+        Optional<Expense> expense = expenseRepository.findByIdAndUserId(id, userId);
+        if (expense.isPresent()) {
+            return expense.get();
+        }
+        return archivedExpenseRepository.findByIdAndUserId(id, userId).map(ArchivedExpense::toExpense).orElse(null);
+    }
+
+    // Create new expense owned by the user
+    public Expense createExpense(Long userId, Expense expense) {
+        validateNewExpense(expense);
+        expense.setUserId(userId);
+        Expense saved;
+        try {
+            saved = expenseRepository.save(expense);
+        } catch (DataIntegrityViolationException e) {
+            // fk_expenses_user: there is no such user
+            throw new IllegalArgumentException("Unknown user: " + userId);
+        }
+        eventPublisher.publishEvent(ExpenseChangeEvent.created(List.of(copyOf(saved))));
+        return saved;
+    }
+
+    // Validate an expense before insert and fill in defaults (shared with the bulk path)
+    public void validateNewExpense(Expense expense) {
+        if (expense == null) {
+            throw new IllegalArgumentException("Expense cannot be null");
+        }
+
         // Development mode - minimal validation
         if (expense.getAmount() < 0) {
             throw new IllegalArgumentException("Amount cannot be negative");
         }
-        
+        if (expense.getDescription() == null || expense.getDescription().isBlank()) {
+            throw new IllegalArgumentException("Description is required");
+        }
+        if (expense.getCategory() == null || expense.getCategory().isBlank()) {
+            throw new IllegalArgumentException("Category is required");
+        }
+
         // Set current date if not provided
-        if (expense.getDate() == null || expense.getDate().isEmpty()) {
-            expense.setDate(java.time.LocalDate.now().toString());
+        if (expense.getDate() == null) {
+            expense.setDate(LocalDate.now());
         }
-        
-        return expenseRepository.save(expense);
     }
 
-    // Update expense
-    public Expense updateExpense(Long id, Expense expense) {
-        Optional<Expense> existingExpenseOpt = expenseRepository.findById(id);
+    // Update expense (only the user's own)
+    public Expense updateExpense(Long userId, Long id, Expense expense) {
+        Optional<Expense> existingExpenseOpt = expenseRepository.findByIdAndUserId(id, userId);
         if (existingExpenseOpt.isEmpty()) {
             throw new IllegalArgumentException("Expense not found with id: " + id);
         }
         
         Expense existingExpense = existingExpenseOpt.get();
+        Expense before = copyOf(existingExpense);
         
         // Update fields
         existingExpense.setDescription(expense.getDescription());
@@ -55,32 +221,94 @@ public class ExpenseService {
         existingExpense.setCategory(expense.getCategory());
         existingExpense.setDate(expense.getDate());
         
-        return expenseRepository.save(existingExpense);
+        Expense saved = expenseRepository.save(existingExpense);
+        eventPublisher.publishEvent(ExpenseChangeEvent.updated(before, copyOf(saved)));
+        return saved;
     }
 
-    // Delete expense
-    public boolean deleteExpense(Long id) {
-        if (expenseRepository.existsById(id)) {
-            expenseRepository.deleteById(id);
+    // Delete expense (only the user's own)
+    public boolean deleteExpense(Long userId, Long id) {
+        Optional<Expense> existingExpense = expenseRepository.findByIdAndUserId(id, userId);
+        if (existingExpense.isPresent()) {
+            expenseRepository.delete(existingExpense.get());
+            eventPublisher.publishEvent(ExpenseChangeEvent.deleted(copyOf(existingExpense.get())));
             return true;
         }
         return false;
     }
 
     // Get total expenses amount
-    public double getTotalExpenses() {
-        return expenseRepository.findAll()
-                .stream()
-                .mapToDouble(Expense::getAmount)
-                .sum();
-    }
-
-    //Get total expenses amount by category
-    public double getTotalExpensesByCategory(String category){
-        return expenseRepository.findAll()
-                .stream()
-                .filter(expense -> expense.getCategory().equals(category))
-                .mapToDouble(Expense::getAmount)
-                .sum();
-    }
-} 
\ No newline at end of file
+    @Transactional(readOnly = true)
+    public double getTotalExpenses(Long userId) {
+        if (useColumnarStore()) {
+            return columnarExpenseStore.getTotalAmount(userId);
+        }
+        return expenseRepository.sumAmount(userId);
+    }
+
+    //Get total expenses amount by category (cached under (userId, category); evicted by ExpenseReadCache on writes)
+    @Cacheable(cacheNames = CacheConfig.CATEGORY_TOTALS)
+    public double getTotalExpensesByCategory(Long userId, String category){
+        if (useColumnarStore()) {
+            return columnarExpenseStore.getTotalAmountForCategory(userId, category);
+        }
+        return expenseRepository.sumAmountByCategory(userId, category);
+    }
+
+    // Get totals for several categories in one query (all categories when none are given).
+    // Requested categories without any expenses are reported as 0.
+    @Transactional(readOnly = true)
+    public Map<String, Double> getTotalsByCategory(Long userId, List<String> categories) {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        if (useColumnarStore()) {
+            Map<String, Double> allTotals = columnarExpenseStore.getCategoryTotals(userId);
+            if (categories == null || categories.isEmpty()) {
+                totals.putAll(allTotals);
+            } else {
+                categories.forEach(category -> totals.put(category, allTotals.getOrDefault(category, 0.0)));
+            }
+            return totals;
+        }
+
+        List<CategoryTotal> rows;
+        if (categories == null || categories.isEmpty()) {
+            rows = expenseRepository.sumAmountGroupedByCategory(userId);
+        } else {
+            categories.forEach(category -> totals.put(category, 0.0));
+            rows = expenseRepository.sumAmountGroupedByCategory(userId, categories);
+        }
+        for (CategoryTotal row : rows) {
+            totals.put(row.getCategory(), row.getTotal());
+        }
+        return totals;
+    }
+
+    private boolean useColumnarStore() {
+        return columnarExpenseStore != null && columnarExpenseStore.isLoaded();
+    }
+
+    // Detached copy for change events, so listeners never see later modifications
+    static Expense copyOf(Expense expense) {
+        Expense copy = new Expense(expense.getId(), expense.getDescription(), expense.getAmount(),
+                expense.getCategory(), expense.getDate());
+        copy.setUserId(expense.getUserId());
+        return copy;
+    }
+
+    // Cursors are the last id of the previous page, base64url-encoded so clients treat them as opaque
+    private static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ritesh.expensetracker.service;
+
+import com.ritesh.expensetracker.cache.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bloom filter over every registered email (lower-cased), built from the users table at startup
+// and updated on each registration.
+// - mightContain == false: the email is certainly not registered, so registration can insert
+//   straight away without an existence query.
+// - mightContain == true: the email is probably registered (or is a false positive, about
+//   auth.email-filter.false-positive-rate of new emails); the caller confirms with the database.
+// Until the startup load finishes every email "might" be registered, so nothing is skipped.
+// The unique index on users.email stays the source of truth either way.
+@Component
+public class RegisteredEmailFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegisteredEmailFilter.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final BloomFilter filter;
+    private final AtomicLong added = new AtomicLong();
+    private volatile boolean loaded;
+
+    public RegisteredEmailFilter(@Value("${auth.email-filter.expected-users:1000000}") long expectedUsers,
+                                 @Value("${auth.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.filter = new BloomFilter(expectedUsers, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long startTime = System.currentTimeMillis();
+        JdbcTemplate streamingTemplate = new JdbcTemplate(dataSource);
+        // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the result
+        streamingTemplate.setFetchSize(Integer.MIN_VALUE);
+
+        // Registrations during the load go into the same filter, so none are missed
+        streamingTemplate.query("SELECT email FROM users", (RowCallbackHandler) rs -> add(rs.getString(1)));
+        loaded = true;
+        logger.info("Registered email filter loaded {} emails ({} bits, {} hashes) in {} ms",
+                added.get(), filter.getBitCount(), filter.getHashCount(), System.currentTimeMillis() - startTime);
+    }
+
+    public void add(String email) {
+        filter.put(normalize(email));
+        added.incrementAndGet();
+    }
+
+    public boolean mightContain(String email) {
+        return !loaded || filter.mightContain(normalize(email));
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // MySQL compares emails case-insensitively (default collation), so the filter does too
+    static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,139 @@
+package com.ritesh.expensetracker.service;
+
+import com.ritesh.expensetracker.model.BulkInsertResult;
+import com.ritesh.expensetracker.model.Users;
+import com.ritesh.expensetracker.repository.UsersRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class UserBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserBulkService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO users (email, name, password) VALUES (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    @Value("${auth.bulk.batch-size:500}")
+    private int batchSize;
+
+    @Value("${auth.bulk.max-items:10000}")
+    private int maxItems;
+
+    private BatchInserter<Users> batchInserter;
+
+    @PostConstruct
+    private void initializeBatchInserter() {
+        this.batchInserter = new BatchInserter<>("User batch", jdbcTemplate, transactionManager,
+                INSERT_SQL, batchSize, UserBulkService::bind);
+    }
+
+    // Batch registration for migrations from the old system:
+    // 1. validate every user and drop repeated emails within the request (INVALID);
+    // 2. look up only the emails the filter has probably seen, one IN query per batch, and
+    //    report the registered ones as INVALID;
+    // 3. insert the rest in JDBC batches, one transaction each (see BatchInserter). A batch that
+    //    hits the unique index (a concurrent registration) is retried row by row, so only that row is FAILED.
+    public BulkInsertResult registerUsers(List<Users> users) {
+        if (users.size() > maxItems) {
+            throw new IllegalArgumentException("At most " + maxItems + " users can be submitted at once");
+        }
+
+        BulkInsertResult result = new BulkInsertResult(users.size());
+        Map<String, Integer> indexByEmail = new HashMap<>();
+        List<String> maybeRegistered = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            try {
+                authService.validateNewUser(users.get(i));
+            } catch (IllegalArgumentException e) {
+                result.invalid(i, e.getMessage());
+                continue;
+            }
+            String email = users.get(i).getEmail();
+            if (indexByEmail.putIfAbsent(RegisteredEmailFilter.normalize(email), i) != null) {
+                result.invalid(i, "Email appears more than once in the request.");
+            } else if (registeredEmailFilter.mightContain(email)) {
+                maybeRegistered.add(email);
+            }
+        }
+
+        Set<String> registered = new HashSet<>();
+        for (int from = 0; from < maybeRegistered.size(); from += batchSize) {
+            for (String email : usersRepository.findExistingEmails(
+                    maybeRegistered.subList(from, Math.min(from + batchSize, maybeRegistered.size())))) {
+                registered.add(RegisteredEmailFilter.normalize(email));
+            }
+        }
+        List<Integer> validIndexes = new ArrayList<>(indexByEmail.size());
+        for (Map.Entry<String, Integer> entry : indexByEmail.entrySet()) {
+            if (registered.contains(entry.getKey())) {
+                result.invalid(entry.getValue(), "Email already exists.");
+            } else {
+                validIndexes.add(entry.getValue());
+            }
+        }
+        validIndexes.sort(null);
+
+        long startTime = System.currentTimeMillis();
+        batchInserter.insert(users, validIndexes, new BatchInserter.Outcome() {
+            @Override
+            public void created(int index, long id) {
+                users.get(index).setId(id);
+                result.created(index, id);
+                registeredEmailFilter.add(users.get(index).getEmail());
+            }
+
+            @Override
+            public void failed(int index, DataAccessException e) {
+                if (e instanceof DuplicateKeyException) {
+                    registeredEmailFilter.add(users.get(index).getEmail());
+                    result.failed(index, "Email already exists.");
+                } else {
+                    result.failed(index, e.getMostSpecificCause().getMessage());
+                }
+            }
+        });
+
+        logger.info("Batch registration of {} users: {} created, {} invalid, {} failed in {} ms",
+                users.size(), result.getCreated(), result.getInvalid(), result.getFailed(),
+                System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    private static void bind(PreparedStatement ps, Users user) throws SQLException {
+        ps.setString(1, user.getEmail());
+        ps.setString(2, user.getName());
+        ps.setString(3, user.getPassword());
+    }
+}
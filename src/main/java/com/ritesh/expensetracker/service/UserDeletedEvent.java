@@ -0,0 +1,19 @@
+package com.ritesh.expensetracker.service;
+
+// Published by AuthService.deleteUser inside its transaction. The user's expenses, archived
+// expenses and monthly rollups go with the users row (ON DELETE CASCADE), without an
+// ExpenseChangeEvent, so every in-memory view of them listens for this event and drops the
+// user's state. Listeners are @TransactionalEventListener(fallbackExecution = true), like
+// those of ExpenseChangeEvent.
+public class UserDeletedEvent {
+
+    private final Long userId;
+
+    public UserDeletedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
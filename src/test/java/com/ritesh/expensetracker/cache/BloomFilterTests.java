@@ -0,0 +1,98 @@
+package com.ritesh.expensetracker.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+
+	private static String email(String prefix, int i) {
+		return prefix + i + "@gmail.com";
+	}
+
+	@Test
+	void addedValuesAreNeverMissing() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put(email("user", i));
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain(email("user", i))).as(email("user", i)).isTrue();
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearConfiguredRate() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put(email("user", i));
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain(email("other", i))) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+	}
+
+	@Test
+	void sizesBitsAndHashesFromExpectedValuesAndRate() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+		// m = -n ln p / (ln 2)^2 = 95851, rounded up to whole 64-bit words; k = m / n ln 2 = 6.6
+		assertThat(filter.getBitCount()).isEqualTo(95_872);
+		assertThat(filter.getHashCount()).isEqualTo(7);
+	}
+
+	@Test
+	void concurrentPutsAreNotLost() throws Exception {
+		int threads = 8;
+		int perThread = 5_000;
+		BloomFilter filter = new BloomFilter(threads * perThread, 0.01);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				String prefix = "thread" + t + "-";
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < perThread; i++) {
+						filter.put(email(prefix, i));
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		for (int t = 0; t < threads; t++) {
+			for (int i = 0; i < perThread; i++) {
+				assertThat(filter.mightContain(email("thread" + t + "-", i))).isTrue();
+			}
+		}
+	}
+
+	@Test
+	void rejectsInvalidSizing() {
+		assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new BloomFilter(100, 0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new BloomFilter(100, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,91 @@
+package com.ritesh.expensetracker.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+// Expired values are served while they reload; reload() waits for a value loaded after the call
+class RefreshingCacheTests {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	void firstReadWaitsForTheLoad() {
+		RefreshingCache<Integer> cache = new RefreshingCache<>("test", loads::incrementAndGet, Duration.ofHours(1), Runnable::run);
+
+		assertThat(cache.get()).isEqualTo(1);
+		assertThat(cache.get()).isEqualTo(1);
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void expiredValueIsServedWhileItReloads() {
+		List<Runnable> background = new ArrayList<>();
+		RefreshingCache<Integer> cache = new RefreshingCache<>("test", loads::incrementAndGet, Duration.ZERO, background::add);
+		cache.reload();
+
+		assertThat(cache.get()).isEqualTo(1);
+		assertThat(cache.isRefreshing()).isTrue();
+		background.forEach(Runnable::run);
+
+		assertThat(cache.peek()).isEqualTo(2);
+		assertThat(cache.isRefreshing()).isFalse();
+	}
+
+	@Test
+	void reloadReturnsNewValueAtOnce() {
+		RefreshingCache<Integer> cache = new RefreshingCache<>("test", loads::incrementAndGet, Duration.ofHours(1), Runnable::run);
+		cache.get();
+
+		assertThat(cache.reload()).isEqualTo(2);
+		assertThat(cache.get()).isEqualTo(2);
+	}
+
+	@Test
+	void reloadAfterJoiningALoadStartsAnotherOne() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		RefreshingCache<Integer> cache = new RefreshingCache<>("test", () -> {
+			int load = loads.incrementAndGet();
+			if (load == 1) {
+				loading.countDown();
+				await(release);
+			}
+			return load;
+		}, Duration.ofHours(1), Runnable::run);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Integer> first = executor.submit(cache::reload);
+			assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+			CompletableFuture<Integer> joined = cache.refresh();
+			release.countDown();
+
+			assertThat(joined.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+			assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+			// the joined load is cleared before it completes, so this one loads again
+			assertThat(cache.reload()).isEqualTo(2);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.ritesh.expensetracker.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Routes between two embedded H2 databases, each of which reports its own name
+class DataSourceRoutingConfigTests {
+
+	private static final String WHICH_SQL = "SELECT name FROM server";
+
+	private EmbeddedDatabase primary;
+	private EmbeddedDatabase replica;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate readWrite;
+	private TransactionTemplate readOnly;
+
+	@BeforeEach
+	void createDatabases() {
+		primary = database("primary");
+		replica = database("replica");
+		DataSource routing = DataSourceRoutingConfig.routingDataSource(primary, replica);
+		jdbcTemplate = new JdbcTemplate(routing);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	@AfterEach
+	void shutdownDatabases() {
+		primary.shutdown();
+		replica.shutdown();
+	}
+
+	private static EmbeddedDatabase database(String name) {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.setName(name + "-" + UUID.randomUUID())
+				.build();
+		JdbcTemplate template = new JdbcTemplate(database);
+		template.execute("CREATE TABLE server (name VARCHAR(16))");
+		template.update("INSERT INTO server (name) VALUES (?)", name);
+		return database;
+	}
+
+	private String which() {
+		return jdbcTemplate.queryForObject(WHICH_SQL, String.class);
+	}
+
+	@Test
+	void readOnlyTransactionUsesReplica() {
+		String name = readOnly.execute(status -> which());
+
+		assertThat(name).isEqualTo("replica");
+	}
+
+	@Test
+	void readWriteTransactionUsesPrimary() {
+		String name = readWrite.execute(status -> which());
+
+		assertThat(name).isEqualTo("primary");
+	}
+
+	@Test
+	void statementOutsideTransactionUsesPrimary() {
+		assertThat(which()).isEqualTo("primary");
+	}
+
+	@Test
+	void readOnlyCallInsideReadWriteTransactionStaysOnPrimary() {
+		String name = readWrite.execute(status -> {
+			jdbcTemplate.update("INSERT INTO server (name) VALUES ('written')");
+			return readOnly.execute(inner -> jdbcTemplate.queryForObject(
+					"SELECT name FROM server WHERE name <> 'written'", String.class));
+		});
+		assertThat(name).isEqualTo("primary");
+	}
+
+	@Test
+	void writesLandOnPrimaryOnly() {
+		readWrite.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO server (name) VALUES ('written')"));
+
+		assertThat(new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM server", Integer.class)).isEqualTo(2);
+		assertThat(new JdbcTemplate(replica).queryForObject("SELECT COUNT(*) FROM server", Integer.class)).isEqualTo(1);
+	}
+}
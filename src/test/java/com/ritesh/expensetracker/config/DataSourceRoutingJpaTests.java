@@ -0,0 +1,128 @@
+package com.ritesh.expensetracker.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ritesh.expensetracker.model.Users;
+import com.ritesh.expensetracker.repository.UsersRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+// The routing through JPA: JpaTransactionManager and HibernateJpaDialect must mark the connection
+// read-only before Hibernate's first statement, or every read would land on the primary.
+// Two H2 databases; Hibernate creates the schema on the primary, the replica's users table is made here.
+// Not transactional, so each repository call runs its own (read-only or read-write) transaction.
+@DataJpaTest(properties = {
+		"spring.datasource.replica.jdbc-url=jdbc:h2:mem:replica-${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE",
+		"spring.datasource.replica.username=sa"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import(DataSourceRoutingConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DataSourceRoutingJpaTests {
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	@Qualifier("primaryDataSource")
+	private HikariDataSource primaryDataSource;
+
+	@Autowired
+	@Qualifier("replicaDataSource")
+	private HikariDataSource replicaDataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private UsersRepository usersRepository;
+
+	private JdbcTemplate primary;
+	private JdbcTemplate replica;
+
+	@BeforeEach
+	void createUsers() {
+		primary = new JdbcTemplate(primaryDataSource);
+		replica = new JdbcTemplate(replicaDataSource);
+		replica.execute("CREATE TABLE IF NOT EXISTS users (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+				+ "name VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL, password VARCHAR(255) NOT NULL)");
+		replica.update("INSERT INTO users (name, email, password) VALUES ('Replica', 'replica@gmail.com', 'secret')");
+		primary.update("INSERT INTO users (name, email, password) VALUES ('Primary', 'primary@gmail.com', 'secret')");
+	}
+
+	@AfterEach
+	void deleteUsers() {
+		primary.update("DELETE FROM users");
+		replica.update("DELETE FROM users");
+	}
+
+	private static Users user(String email) {
+		return new Users(null, email, "Name of " + email, "secret");
+	}
+
+	@Test
+	void routingDataSourceBacksJpa() {
+		assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+		assertThat(((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource()).isSameAs(primaryDataSource);
+		assertThat(primaryDataSource.getPoolName()).isEqualTo("primary");
+		assertThat(replicaDataSource.getPoolName()).isEqualTo("replica");
+		assertThat(transactionManager).isInstanceOfSatisfying(JpaTransactionManager.class,
+				jpa -> assertThat(jpa.getDataSource()).isSameAs(dataSource));
+	}
+
+	@Test
+	void inheritedFindersReadReplica() {
+		// SimpleJpaRepository's own methods are @Transactional(readOnly = true)
+		assertThat(usersRepository.findAll()).extracting(Users::getEmail).containsExactly("replica@gmail.com");
+	}
+
+	@Test
+	void declaredQueryReadsReplicaOnlyInsideReadOnlyTransaction() {
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+
+		Boolean onReplica = readOnly.execute(status -> usersRepository.existsByEmail("replica@gmail.com"));
+
+		assertThat(onReplica).isTrue();
+		// queries declared on the interface get no transaction of their own, so they run on the primary
+		assertThat(usersRepository.existsByEmail("primary@gmail.com")).isTrue();
+	}
+
+	@Test
+	void saveWritesPrimaryOnly() {
+		usersRepository.save(user("new@gmail.com"));
+
+		assertThat(primary.queryForList("SELECT email FROM users ORDER BY email", String.class))
+				.containsExactly("new@gmail.com", "primary@gmail.com");
+		assertThat(replica.queryForList("SELECT email FROM users", String.class)).containsExactly("replica@gmail.com");
+	}
+
+	@Test
+	void readOnlyCallInsideReadWriteTransactionStaysOnPrimary() {
+		TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+		List<Users> users = readWrite.execute(status -> usersRepository.findAll());
+
+		assertThat(users).extracting(Users::getEmail).containsExactly("primary@gmail.com");
+	}
+}
@@ -0,0 +1,82 @@
+package com.ritesh.expensetracker.service.AI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+// Only upstream faults (5xx, timeouts, I/O errors) may open the breaker; a 4xx never does
+class AiCircuitBreakerTests {
+
+	private static final int WINDOW = 4;
+
+	private AiCircuitBreaker breaker;
+
+	@BeforeEach
+	void createBreaker() {
+		breaker = new AiCircuitBreaker(WINDOW, WINDOW, 50, 30, 80, 30, 1);
+	}
+
+	private void failCalls(Exception failure) {
+		for (int i = 0; i < WINDOW; i++) {
+			assertThatThrownBy(() -> breaker.execute(() -> {
+				throw failure;
+			})).isSameAs(failure);
+		}
+	}
+
+	@Test
+	void clientErrorsDoNotOpen() {
+		failCalls(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
+
+		assertThat(breaker.isOpen()).isFalse();
+		assertThat(breaker.getStatistics()).containsEntry("failureRate", 0.0f);
+	}
+
+	@Test
+	void serverErrorsOpen() {
+		failCalls(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+		assertThat(breaker.isOpen()).isTrue();
+		assertThatThrownBy(() -> breaker.execute(() -> "answer")).satisfies(
+				e -> assertThat(AiCircuitBreaker.isNotPermitted(e)).isTrue());
+	}
+
+	@Test
+	void wrappedTimeoutsOpen() {
+		// as AiController rethrows a RestClientException
+		failCalls(new Exception("API request failed",
+				new ResourceAccessException("Read timed out", new SocketTimeoutException("Read timed out"))));
+
+		assertThat(breaker.isOpen()).isTrue();
+	}
+
+	@Test
+	void streamedClientErrorsDoNotOpen() {
+		for (int i = 0; i < WINDOW; i++) {
+			long start = breaker.acquirePermission();
+			breaker.onError(start, new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS));
+		}
+
+		assertThat(breaker.isOpen()).isFalse();
+	}
+
+	@Test
+	void classifiesUpstreamFailures() {
+		assertThat(AiCircuitBreaker.isUpstreamFailure(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))).isTrue();
+		assertThat(AiCircuitBreaker.isUpstreamFailure(new IOException("Failed to parse API response: empty body"))).isTrue();
+		assertThat(AiCircuitBreaker.isUpstreamFailure(new ResourceAccessException("Connection refused"))).isTrue();
+		assertThat(AiCircuitBreaker.isUpstreamFailure(new HttpClientErrorException(HttpStatus.BAD_REQUEST))).isFalse();
+		assertThat(AiCircuitBreaker.isUpstreamFailure(
+				new Exception("wrapped", new HttpClientErrorException(HttpStatus.FORBIDDEN)))).isFalse();
+		assertThat(AiCircuitBreaker.isUpstreamFailure(new IllegalStateException("bug"))).isFalse();
+	}
+}
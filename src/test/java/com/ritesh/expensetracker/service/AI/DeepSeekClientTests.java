@@ -0,0 +1,114 @@
+package com.ritesh.expensetracker.service.AI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.sun.net.httpserver.HttpServer;
+
+// Runs DeepSeekClient against a local stub that speaks the OpenAI-style SSE protocol
+class DeepSeekClientTests {
+
+	private HttpServer server;
+	private final AtomicReference<String> requestBody = new AtomicReference<>();
+	private final AtomicReference<String> acceptHeader = new AtomicReference<>();
+	private volatile List<String> events = List.of();
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/chat/completions", exchange -> {
+			requestBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			acceptHeader.set(exchange.getRequestHeaders().getFirst("Accept"));
+			exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+			exchange.sendResponseHeaders(200, 0); // chunked
+			try (OutputStream out = exchange.getResponseBody()) {
+				for (String event : events) {
+					out.write(event.getBytes(StandardCharsets.UTF_8));
+					out.flush();
+				}
+			}
+		});
+		server.createContext("/blocking", exchange -> {
+			requestBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			byte[] response = "{\"choices\":[{\"message\":{\"content\":\"Spend less on food.\"}}]}"
+					.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	private DeepSeekClient client() {
+		return client("/chat/completions");
+	}
+
+	private DeepSeekClient client(String path) {
+		return new DeepSeekClient("http://127.0.0.1:" + server.getAddress().getPort() + path,
+				"test-key", 5, 5, 4, 30, 300);
+	}
+
+	@Test
+	void completeReusesPooledConnection() throws IOException {
+		DeepSeekClient client = client("/blocking");
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(client.complete("Where can I save?")).isEqualTo("Spend less on food.");
+		}
+
+		assertThat(requestBody.get()).contains("Where can I save?").doesNotContain("\"stream\"");
+		// All three calls went over one kept-alive connection, which is back in the pool
+		assertThat(client.getPoolStatistics()).containsEntry("available", 1).containsEntry("leased", 0);
+	}
+
+	@Test
+	void streamsDeltasInOrderUntilDone() {
+		events = List.of(
+				": OPENROUTER PROCESSING\n\n",
+				"data: {\"choices\":[{\"delta\":{\"reasoning\":\"Thinking\"}}]}\n\n",
+				"data: {\"choices\":[{\"delta\":{\"content\":\"You spent \"}}]}\n\n",
+				"data: {\"choices\":[{\"delta\":{\"content\":\"$42.\"}}]}\n\n",
+				"data: [DONE]\n\n",
+				"data: {\"choices\":[{\"delta\":{\"content\":\"ignored\"}}]}\n\n");
+
+		List<String> received = new ArrayList<>();
+		client().streamCompletion("How much did I spend?", (type, text) -> received.add(type + ":" + text));
+
+		assertThat(received).containsExactly("reasoning:Thinking", "content:You spent ", "content:$42.");
+		assertThat(requestBody.get()).contains("\"stream\":true").contains("How much did I spend?");
+		assertThat(acceptHeader.get()).contains("text/event-stream");
+	}
+
+	@Test
+	void upstreamErrorPayloadFailsTheStream() {
+		events = List.of(
+				"data: {\"choices\":[{\"delta\":{\"content\":\"partial\"}}]}\n\n",
+				"data: {\"error\":{\"message\":\"Rate limit exceeded\"}}\n\n");
+
+		List<String> received = new ArrayList<>();
+		assertThatThrownBy(() -> client().streamCompletion("q", (type, text) -> received.add(text)))
+				.isInstanceOf(ResourceAccessException.class)
+				.hasMessageContaining("Rate limit exceeded");
+		assertThat(received).containsExactly("partial");
+	}
+}
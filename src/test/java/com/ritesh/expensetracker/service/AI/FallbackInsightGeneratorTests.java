@@ -0,0 +1,127 @@
+package com.ritesh.expensetracker.service.AI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+// The offline answer served while the breaker is open, built from the analytics snapshot and monthly totals
+class FallbackInsightGeneratorTests {
+
+	// after every month below, so none of them is in progress
+	private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+	private final FallbackInsightGenerator generator = new FallbackInsightGenerator();
+
+	private static Map<String, Object> analytics(double total, long count, double recent, Map<String, Double> categories) {
+		Map<String, Object> analytics = new LinkedHashMap<>();
+		analytics.put("totalAmount", total);
+		analytics.put("totalCount", count);
+		analytics.put("averageAmount", total / count);
+		analytics.put("recentMonthTotal", recent);
+		analytics.put("categoryTotals", categories);
+		return analytics;
+	}
+
+	private static Map<String, Double> categories() {
+		Map<String, Double> categories = new LinkedHashMap<>();
+		categories.put("Pets", 20.0);
+		categories.put("Food", 300.0);
+		categories.put("Books", 30.0);
+		categories.put("Rent", 500.0);
+		categories.put("Travel", 100.0);
+		categories.put("Fun", 50.0);
+		return categories;
+	}
+
+	private static Map<YearMonth, Double> months(double... totals) {
+		Map<YearMonth, Double> months = new LinkedHashMap<>();
+		// inserted newest first, the generator sorts them
+		for (int i = totals.length - 1; i >= 0; i--) {
+			months.put(YearMonth.of(2025, 1 + i), totals[i]);
+		}
+		return months;
+	}
+
+	@Test
+	void noDataYet() {
+		assertThat(generator.generate("Where does my money go?", Map.of(), Map.of(), TODAY)).isEqualTo(
+				FallbackInsightGenerator.NOTICE + "\n\nNo expense data available yet. Add some expenses to get insights.");
+	}
+
+	@Test
+	void summarizesOverviewCategoriesTrendAndSuggestions() {
+		String insight = generator.generate("Where does my money go?",
+				analytics(1000.0, 20, 400.0, categories()), months(300.0, 300.0, 400.0), TODAY);
+
+		assertThat(insight).startsWith(FallbackInsightGenerator.NOTICE + "\n\n").contains(
+				"- Total spent: $1000.00 across 20 transactions (average $50.00)\n",
+				"- Last 30 days: $400.00\n",
+				"TOP CATEGORIES:\n- Rent: $500.00 (50.0%)\n- Food: $300.00 (30.0%)\n- Travel: $100.00 (10.0%)\n"
+						+ "- Fun: $50.00 (5.0%)\n- Books: $30.00 (3.0%)\n\n",
+				"TREND:\n- 2025-01: $300.00\n- 2025-02: $300.00\n- 2025-03: $400.00\n- 2025-03 is up 33.3% from 2025-02\n",
+				"- Rent makes up 50.0% of your spending; a monthly limit there has the biggest effect.\n",
+				"- The last 30 days are 20.0% above your average month ($333.33); review recent purchases.\n");
+		assertThat(insight).doesNotContain("Pets", "Spending looks steady");
+	}
+
+	@Test
+	void categoryNamedInQuestionIsShownBeyondTheTopFive() {
+		String insight = generator.generate("How much do my PETS cost?",
+				analytics(1000.0, 20, 400.0, categories()), months(1000.0), TODAY);
+
+		assertThat(insight).contains("- Books: $30.00 (3.0%)\n- Pets: $20.00 (2.0%)\n");
+	}
+
+	@Test
+	void trendShowsOnlyTheLastThreeMonthsAndFalls() {
+		String insight = generator.generate("Trend?",
+				analytics(1000.0, 20, 100.0, categories()), months(100.0, 200.0, 400.0, 300.0), TODAY);
+
+		assertThat(insight).contains("TREND:\n- 2025-02: $200.00\n- 2025-03: $400.00\n- 2025-04: $300.00\n"
+				+ "- 2025-04 is down 25.0% from 2025-03\n");
+		assertThat(insight).doesNotContain("2025-01");
+	}
+
+	@Test
+	void steadySpendingGetsTheDefaultSuggestion() {
+		Map<String, Double> categories = Map.of("Food", 25.0, "Rent", 25.0, "Travel", 25.0, "Fun", 25.0);
+
+		String insight = generator.generate("Tips?", analytics(100.0, 4, 20.0, categories), months(100.0), TODAY);
+
+		assertThat(insight).doesNotContain("TREND:").endsWith("SUGGESTIONS:\n"
+				+ "- Spending looks steady. Review recurring expenses in your top categories to find savings.\n");
+		// equal totals are listed by name, so the text does not depend on map order
+		assertThat(insight).contains("- Food: $25.00 (25.0%)\n- Fun: $25.00 (25.0%)\n- Rent: $25.00 (25.0%)\n"
+				+ "- Travel: $25.00 (25.0%)\n");
+	}
+
+	@Test
+	void sameInputGivesSameText() {
+		Map<String, Object> analytics = analytics(1000.0, 20, 400.0, categories());
+
+		assertThat(generator.generate("Q", analytics, months(300.0, 400.0), TODAY))
+				.isEqualTo(generator.generate("Q", analytics, months(300.0, 400.0), TODAY));
+	}
+
+	@Test
+	void monthInProgressIsComparedWithTheSameShareOfThePreviousMonth() {
+		// day 14 of February's 28: half of January's 300.00 is the baseline
+		String insight = generator.generate("Trend?", analytics(480.0, 10, 180.0, categories()),
+				months(300.0, 180.0), LocalDate.of(2025, 2, 14));
+
+		assertThat(insight).contains("- 2025-02 to day 14 is up 20.0% from the same share of 2025-01\n");
+	}
+
+	@Test
+	void monthEndingTodayIsComparedWhole() {
+		String insight = generator.generate("Trend?", analytics(480.0, 10, 180.0, categories()),
+				months(300.0, 180.0), LocalDate.of(2025, 2, 28));
+
+		assertThat(insight).contains("- 2025-02 is down 40.0% from 2025-01\n");
+	}
+}
@@ -0,0 +1,53 @@
+package com.ritesh.expensetracker.service.AI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.ritesh.expensetracker.model.Expense;
+
+// Prompt numbers must read exactly as String.format("%.2f") / ("%.1f") would write them
+class PromptTextTests {
+
+	private static String amount(double value) {
+		return PromptText.appendAmount(new StringBuilder(), value).toString();
+	}
+
+	private static String percent(double value) {
+		return PromptText.appendPercent(new StringBuilder(), value).toString();
+	}
+
+	@ParameterizedTest
+	@ValueSource(doubles = {0, -0.0, 0.004, 0.005, 0.05, 0.125, 1.005, 1.115, 2.675, 4.35, 8.345, 12.5, 99.995,
+			1_234_567.891, 1e17, -0.001, -1.005, -2.5, -99.995, Double.MIN_VALUE,
+			Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY})
+	void matchesFormat(double value) {
+		assertThat(amount(value)).isEqualTo(String.format(Locale.ROOT, "%.2f", value));
+		assertThat(percent(value)).isEqualTo(String.format(Locale.ROOT, "%.1f", value));
+	}
+
+	@Test
+	void roundsTheDecimalValueHalfUp() {
+		// the doubles are just below the halfway point; scaling them as doubles used to round down
+		assertThat(amount(1.005)).isEqualTo("1.01");
+		assertThat(amount(2.675)).isEqualTo("2.68");
+		assertThat(amount(-1.005)).isEqualTo("-1.01");
+		assertThat(percent(0.35)).isEqualTo("0.4");
+		assertThat(amount(-0.001)).isEqualTo("-0.00");
+		assertThat(amount(1e17)).isEqualTo("100000000000000000.00");
+	}
+
+	@Test
+	void expenseRowStaysOneLineOfFourColumns() {
+		Expense expense = new Expense(1L, "Dinner | drinks\nwith a very long description", 30.005, "Food|Out",
+				LocalDate.of(2025, 1, 31));
+
+		assertThat(PromptText.appendExpenseRow(new StringBuilder(), expense).toString())
+				.isEqualTo("2025-01-31|30.01|Food/Out|Dinner / drinks with a very lo...");
+	}
+}
@@ -0,0 +1,229 @@
+package com.ritesh.expensetracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ritesh.expensetracker.model.Expense;
+
+// Columns kept current from change events: the id index, tombstones, compaction and the startup load
+class ColumnarExpenseStoreTests {
+
+	private static final Long USER_ID = 1L;
+	private static final Long OTHER_USER_ID = 2L;
+	private static final LocalDate DAY = LocalDate.of(2025, 3, 14);
+
+	private ColumnarExpenseStore store;
+
+	@BeforeEach
+	void createStore() {
+		store = new ColumnarExpenseStore();
+		ReflectionTestUtils.setField(store, "parallelThreshold", 1_000_000);
+	}
+
+	private static Expense expense(long id, Long userId, double amount, String category) {
+		Expense expense = new Expense(id, category + " " + id, amount, category, DAY);
+		expense.setUserId(userId);
+		return expense;
+	}
+
+	// Rows held for the user, deleted ones included until compaction
+	private int storedRows(Long userId) {
+		Map<?, ?> columnsByUser = (Map<?, ?>) ReflectionTestUtils.getField(store, "columnsByUser");
+		return (Integer) ReflectionTestUtils.getField(columnsByUser.get(userId), "size");
+	}
+
+	// Slots in the user's id index, live keys and tombstones included
+	private int indexCapacity(Long userId) {
+		Map<?, ?> columnsByUser = (Map<?, ?>) ReflectionTestUtils.getField(store, "columnsByUser");
+		Object rowById = ReflectionTestUtils.getField(columnsByUser.get(userId), "rowById");
+		return ((long[]) ReflectionTestUtils.getField(rowById, "keys")).length;
+	}
+
+	@Test
+	void totalsArePerUser() {
+		store.onExpenseChange(ExpenseChangeEvent.created(List.of(
+				expense(1, USER_ID, 12.50, "Food"), expense(2, USER_ID, 2.40, "Transport"),
+				expense(3, USER_ID, 0.10, "Food"), expense(4, OTHER_USER_ID, 99.99, "Food"))));
+
+		assertThat(store.getTotalAmount(USER_ID)).isEqualTo(15.00);
+		assertThat(store.getTotalAmountForCategory(USER_ID, "Food")).isEqualTo(12.60);
+		assertThat(store.getTotalAmountForCategory(USER_ID, "Rent")).isZero();
+		assertThat(store.getCategoryTotals(USER_ID)).containsOnly(entry("Food", 12.60), entry("Transport", 2.40));
+		assertThat(store.getTotalAmount(OTHER_USER_ID)).isEqualTo(99.99);
+		assertThat(store.getTotalAmount(3L)).isZero();
+	}
+
+	@Test
+	void updateReplacesRowFoundByItsId() {
+		Expense lunch = expense(1, USER_ID, 12.50, "Food");
+		store.onExpenseChange(ExpenseChangeEvent.created(List.of(lunch, expense(2, USER_ID, 2.40, "Transport"))));
+
+		store.onExpenseChange(ExpenseChangeEvent.updated(lunch, expense(1, USER_ID, 30.00, "Work")));
+
+		assertThat(store.getTotalAmount(USER_ID)).isEqualTo(32.40);
+		assertThat(store.getCategoryTotals(USER_ID)).containsOnly(entry("Work", 30.00), entry("Transport", 2.40));
+	}
+
+	@Test
+	void replayedCreateDoesNotCountTwice() {
+		Expense lunch = expense(1, USER_ID, 12.50, "Food");
+		store.onExpenseChange(ExpenseChangeEvent.created(List.of(lunch)));
+		store.onExpenseChange(ExpenseChangeEvent.created(List.of(lunch)));
+
+		assertThat(store.getTotalAmount(USER_ID)).isEqualTo(12.50);
+	}
+
+	@Test
+	void deletedRowIsTombstoned() {
+		Expense lunch = expense(1, USER_ID, 12.50, "Food");
+		store.onExpenseChange(ExpenseChangeEvent.created(List.of(lunch, expense(2, USER_ID, 2.40, "Transport"))));
+
+		store.onExpenseChange(ExpenseChangeEvent.deleted(lunch));
+		// deleting an unknown id changes nothing
+		store.onExpenseChange(ExpenseChangeEvent.deleted(expense(42, USER_ID, 1.00, "Food")));
+
+		assertThat(store.getTotalAmount(USER_ID)).isEqualTo(2.40);
+		assertThat(store.getTotalAmountForCategory(USER_ID, "Food")).isZero();
+		assertThat(store.getCategoryTotals(USER_ID)).containsOnly(entry("Transport", 2.40));
+		assertThat(storedRows(USER_ID)).isEqualTo(2);
+	}
+
+	@Test
+	void idIndexDoesNotGrowUnderChurn() {
+		List<Expense> live = new ArrayList<>();
+		for (long id = 1; id <= 100; id++) {
+			live.add(expense(id, USER_ID, 1.00, "Food"));
+		}
+		store.onExpenseChange(ExpenseChangeEvent.created(live));
+		int capacity = indexCapacity(USER_ID);
+
+		// replace one row at a time, far past the point where tombstones fill the table
+		for (long id = 101; id <= 100_000; id++) {
+			Expense replacement = expense(id, USER_ID, 1.00, "Food");
+			store.onExpenseChange(ExpenseChangeEvent.deleted(live.set((int) (id % 100), replacement)));
+			store.onExpenseChange(ExpenseChangeEvent.created(List.of(replacement)));
+		}
+
+		assertThat(indexCapacity(USER_ID)).isLessThanOrEqualTo(capacity * 2);
+		assertThat(store.getTotalAmount(USER_ID)).isEqualTo(100.00);
+		store.onExpenseChange(ExpenseChangeEvent.deleted(live.get(0)));
+		assertThat(store.getTotalAmount(USER_ID)).isEqualTo(99.00);
+	}
+
+	@Test
+	void compactionDropsTombstonesAndKeepsTheIdIndex() {
+		List<Expense> expenses = new ArrayList<>();
+		for (long id = 1; id <= 4_000; id++) {
+			expenses.add(expense(id, USER_ID, 1.00, id % 2 == 0 ? "Food" : "Rent"));
+		}
+		store.onExpenseChange(ExpenseChangeEvent.created(expenses));
+
+		// below the threshold (more than 1024 and a quarter of the rows) the tombstones stay
+		for (int i = 0; i < 1_000; i++) {
+			store.onExpenseChange(ExpenseChangeEvent.deleted(expenses.get(i)));
+		}
+		assertThat(storedRows(USER_ID)).isEqualTo(4_000);
+		for (int i = 1_000; i < 1_100; i++) {
+			store.onExpenseChange(ExpenseChangeEvent.deleted(expenses.get(i)));
+		}
+
+		assertThat(storedRows(USER_ID)).isLessThan(4_000);
+		assertThat(store.getTotalAmount(USER_ID)).isEqualTo(2_900.00);
+		// rows moved by compaction are still found by id
+		Expense last = expenses.get(3_999);
+		store.onExpenseChange(ExpenseChangeEvent.updated(last, expense(4_000, USER_ID, 101.00, "Food")));
+		store.onExpenseChange(ExpenseChangeEvent.deleted(expenses.get(3_998)));
+		assertThat(store.getTotalAmount(USER_ID)).isEqualTo(2_999.00);
+		assertThat(store.getCategoryTotals(USER_ID)).containsOnly(entry("Food", 1_550.00), entry("Rent", 1_449.00));
+	}
+
+	@Test
+	void parallelScanMatchesSequentialScan() {
+		List<Expense> expenses = new ArrayList<>();
+		for (long id = 1; id <= 200_000; id++) {
+			expenses.add(expense(id, USER_ID, (id % 1_000) / 100.0, id % 3 == 0 ? "Food" : "Rent"));
+		}
+		store.onExpenseChange(ExpenseChangeEvent.created(expenses));
+		double total = store.getTotalAmount(USER_ID);
+		Map<String, Double> categories = store.getCategoryTotals(USER_ID);
+
+		ReflectionTestUtils.setField(store, "parallelThreshold", 1);
+
+		assertThat(store.getTotalAmount(USER_ID)).isEqualTo(total);
+		assertThat(store.getCategoryTotals(USER_ID)).isEqualTo(categories);
+	}
+
+	@Test
+	void loadReplacesChangesAppliedBeforeIt() {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.setName("columnar-" + UUID.randomUUID())
+				.build();
+		try {
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+			for (String table : List.of("expenses", "expenses_archive")) {
+				jdbcTemplate.execute("CREATE TABLE " + table + " (id BIGINT PRIMARY KEY, user_id BIGINT, "
+						+ "amount DOUBLE, category VARCHAR(64), expense_date DATE)");
+			}
+			jdbcTemplate.update("INSERT INTO expenses VALUES (1, 1, 12.50, 'Food', ?)", DAY);
+			jdbcTemplate.update("INSERT INTO expenses_archive VALUES (2, 1, 800.00, 'Rent', ?)", DAY.minusYears(2));
+			ReflectionTestUtils.setField(store, "dataSource", ignoringFetchSize(database));
+
+			// committed and published before the store loads, so the load reads it too
+			store.onExpenseChange(ExpenseChangeEvent.created(List.of(expense(1, USER_ID, 12.50, "Food"))));
+			store.load();
+
+			assertThat(store.isLoaded()).isTrue();
+			assertThat(store.getTotalAmount(USER_ID)).isEqualTo(812.50);
+			assertThat(store.getCategoryTotals(USER_ID)).containsOnly(entry("Food", 12.50), entry("Rent", 800.00));
+		} finally {
+			database.shutdown();
+		}
+	}
+
+	// H2 rejects the negative fetch size that makes MySQL stream, so statements skip setFetchSize
+	private static DataSource ignoringFetchSize(DataSource dataSource) {
+		return proxy(DataSource.class, dataSource);
+	}
+
+	private static <T> T proxy(Class<T> type, Object target) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+			if (method.getName().equals("setFetchSize")) {
+				return null;
+			}
+			Object result;
+			try {
+				result = method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+			if (method.getReturnType() == Connection.class) {
+				return proxy(Connection.class, result);
+			}
+			if (method.getReturnType() == Statement.class) {
+				return proxy(Statement.class, result);
+			}
+			return result;
+		}));
+	}
+}
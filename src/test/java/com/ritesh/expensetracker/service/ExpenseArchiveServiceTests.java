@@ -0,0 +1,151 @@
+package com.ritesh.expensetracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ritesh.expensetracker.model.CategoryTotal;
+import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.repository.ExpenseRepository;
+
+// Archives old expenses on H2 (MySQL mode) and checks that every whole-history total reads the
+// same before and after the rows move to the cold tier. Not transactional, so each batch commits.
+@DataJpaTest(properties = {"expenses.archive.horizon-months=4", "expenses.archive.batch-size=2"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({ExpenseArchiveService.class, ExpenseRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExpenseArchiveServiceTests {
+
+	@Autowired
+	private ExpenseArchiveService archiveService;
+
+	@Autowired
+	private ExpenseRollupService rollupService;
+
+	@Autowired
+	private ExpenseRepository expenseRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private LocalDate hotStart;
+
+	@BeforeEach
+	void saveExpenses() {
+		hotStart = archiveService.getHotRangeStart();
+		// archived: two months and three categories for user 1, one row for user 2
+		save(1L, "Food", 12.34, hotStart.minusMonths(6).plusDays(2));
+		save(1L, "Food", 0.10, hotStart.minusMonths(6).plusDays(9));
+		save(1L, "Rent", 800.00, hotStart.minusMonths(6));
+		save(1L, "Travel", 45.67, hotStart.minusDays(1));
+		save(1L, "Food", 0.20, hotStart.minusMonths(1));
+		save(2L, "Food", 5.55, hotStart.minusMonths(2));
+		// hot
+		save(1L, "Food", 9.99, hotStart);
+		save(1L, "Rent", 800.00, LocalDate.now());
+	}
+
+	@AfterEach
+	void deleteExpenses() {
+		jdbcTemplate.update("DELETE FROM expenses");
+		jdbcTemplate.update("DELETE FROM expenses_archive");
+		jdbcTemplate.update("DELETE FROM expense_monthly_rollups");
+	}
+
+	private void save(Long userId, String category, double amount, LocalDate date) {
+		Expense expense = new Expense(null, category + " on " + date, amount, category, date);
+		expense.setUserId(userId);
+		expenseRepository.save(expense);
+	}
+
+	@Test
+	void archiveKeepsTotalsIdentical() {
+		Totals user1 = totals(1L);
+		Totals user2 = totals(2L);
+
+		assertThat(archiveService.archive()).isEqualTo(6);
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses WHERE expense_date < ?",
+				Long.class, hotStart)).isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses_archive", Long.class)).isEqualTo(6);
+		assertThat(totals(1L)).isEqualTo(user1);
+		assertThat(totals(2L)).isEqualTo(user2);
+	}
+
+	@Test
+	void secondRunMovesNothing() {
+		archiveService.archive();
+		Totals user1 = totals(1L);
+
+		assertThat(archiveService.archive()).isZero();
+		assertThat(totals(1L)).isEqualTo(user1);
+	}
+
+	@Test
+	void backDatedExpenseIsAddedToExistingMonth() {
+		archiveService.archive();
+		save(1L, "Food", 1.11, hotStart.minusMonths(6).plusDays(20));
+		Totals user1 = totals(1L);
+
+		assertThat(archiveService.archive()).isEqualTo(1);
+		assertThat(totals(1L)).isEqualTo(user1);
+		assertThat(jdbcTemplate.queryForObject("SELECT expense_count FROM expense_monthly_rollups "
+				+ "WHERE user_id = 1 AND category = 'Food' AND month_start = ?", Long.class,
+				YearMonth.from(hotStart.minusMonths(6)).atDay(1))).isEqualTo(3);
+	}
+
+	// Every whole-history figure, in cents so that the hot (double) and rolled-up sums compare exactly
+	private Totals totals(Long userId) {
+		Map<String, String> byCategory = new TreeMap<>();
+		for (CategoryTotal row : expenseRepository.sumAmountGroupedByCategory(userId)) {
+			byCategory.put(row.getCategory(), cents(row.getTotal()) + "/" + row.getCount());
+		}
+		List<String> categories = List.copyOf(byCategory.keySet());
+		Map<String, String> selected = new TreeMap<>();
+		for (CategoryTotal row : expenseRepository.sumAmountGroupedByCategory(userId, categories)) {
+			selected.put(row.getCategory(), cents(row.getTotal()) + "/" + row.getCount());
+		}
+		Map<String, Long> single = new TreeMap<>();
+		for (String category : categories) {
+			single.put(category, cents(expenseRepository.sumAmountByCategory(userId, category)));
+		}
+
+		// reload the rollups from the database instead of reading the deltas kept in memory
+		rollupService.reconcile(userId);
+		Map<String, Long> rollupCategories = new TreeMap<>();
+		rollupService.getCategoryTotals(userId).forEach((category, total) -> rollupCategories.put(category, cents(total)));
+		Map<YearMonth, Long> rollupMonths = new TreeMap<>();
+		rollupService.getMonthlyTotals(userId).forEach((month, total) -> rollupMonths.put(month, cents(total)));
+
+		return new Totals(cents(expenseRepository.sumAmount(userId)), byCategory, selected, single,
+				expenseRepository.findDistinctCategories(userId).stream().sorted().toList(),
+				cents(rollupService.getTotalAmount(userId)), rollupService.getTotalCount(userId),
+				rollupCategories, rollupMonths);
+	}
+
+	private static long cents(double amount) {
+		return Math.round(amount * 100);
+	}
+
+	private record Totals(long total, Map<String, String> byCategory, Map<String, String> selectedCategories,
+			Map<String, Long> singleCategory, List<String> categories, long rollupTotal, long rollupCount,
+			Map<String, Long> rollupCategories, Map<YearMonth, Long> rollupMonths) {
+	}
+}
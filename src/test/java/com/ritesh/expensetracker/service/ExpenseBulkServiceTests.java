@@ -0,0 +1,122 @@
+package com.ritesh.expensetracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ritesh.expensetracker.model.BulkInsertResult;
+import com.ritesh.expensetracker.model.BulkInsertResult.Status;
+import com.ritesh.expensetracker.model.Expense;
+
+// Bulk expense import on H2. The JdbcTemplate can be told to lose generated keys, as a driver
+// without rewriteBatchedStatements support may. Not transactional, so each batch commits or rolls back.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExpenseBulkServiceTests {
+
+	private static final Long USER_ID = 1L;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private JdbcTemplate jdbcTemplate;
+	private int batchesMissingKeys;
+	private final List<ExpenseChangeEvent> events = new ArrayList<>();
+	private ExpenseBulkService expenseBulkService;
+
+	@BeforeEach
+	void wireService() {
+		jdbcTemplate = new JdbcTemplate(dataSource) {
+			@Override
+			public int[] batchUpdate(PreparedStatementCreator psc, BatchPreparedStatementSetter pss, KeyHolder keyHolder) {
+				int[] counts = super.batchUpdate(psc, pss, keyHolder);
+				if (batchesMissingKeys > 0) {
+					batchesMissingKeys--;
+					keyHolder.getKeyList().remove(0);
+				}
+				return counts;
+			}
+		};
+		expenseBulkService = new ExpenseBulkService();
+		ReflectionTestUtils.setField(expenseBulkService, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(expenseBulkService, "transactionManager", transactionManager);
+		ReflectionTestUtils.setField(expenseBulkService, "expenseService", new ExpenseService());
+		ReflectionTestUtils.setField(expenseBulkService, "eventPublisher",
+				(ApplicationEventPublisher) event -> events.add((ExpenseChangeEvent) event));
+		ReflectionTestUtils.setField(expenseBulkService, "batchSize", 2);
+		ReflectionTestUtils.setField(expenseBulkService, "maxItems", 10);
+		ReflectionTestUtils.invokeMethod(expenseBulkService, "initializeBatchInserter");
+	}
+
+	@AfterEach
+	void deleteExpenses() {
+		jdbcTemplate.update("DELETE FROM expenses");
+	}
+
+	private static List<Expense> expenses(int count) {
+		return IntStream.range(0, count)
+				.mapToObj(i -> new Expense(null, "Expense " + i, 10.0 + i, "Food", LocalDate.of(2025, 1, 1 + i)))
+				.toList();
+	}
+
+	private static List<Status> statuses(BulkInsertResult result) {
+		return result.getItems().stream().map(BulkInsertResult.ItemResult::getStatus).toList();
+	}
+
+	private List<Long> storedIds() {
+		return jdbcTemplate.queryForList("SELECT id FROM expenses ORDER BY id", Long.class);
+	}
+
+	private List<Long> createdIds() {
+		return events.stream().flatMap(event -> event.getAdded().stream()).map(Expense::getId).sorted().toList();
+	}
+
+	@Test
+	void createsEveryExpenseAcrossBatches() {
+		BulkInsertResult result = expenseBulkService.createExpenses(USER_ID, expenses(3));
+
+		assertThat(statuses(result)).containsExactly(Status.CREATED, Status.CREATED, Status.CREATED);
+		assertThat(result.getItems()).extracting(BulkInsertResult.ItemResult::getId).containsExactlyElementsOf(storedIds());
+		assertThat(createdIds()).isEqualTo(storedIds());
+	}
+
+	@Test
+	void batchWithMissingKeysIsRolledBackAndRetriedRowByRow() {
+		batchesMissingKeys = 1;
+
+		BulkInsertResult result = expenseBulkService.createExpenses(USER_ID, expenses(3));
+
+		assertThat(statuses(result)).containsExactly(Status.CREATED, Status.CREATED, Status.CREATED);
+		// the first batch's rows are inserted once, by the retry
+		assertThat(storedIds()).hasSize(3);
+		assertThat(result.getItems()).extracting(BulkInsertResult.ItemResult::getId).containsExactlyElementsOf(storedIds());
+		assertThat(createdIds()).isEqualTo(storedIds());
+	}
+}
@@ -0,0 +1,37 @@
+package com.ritesh.expensetracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringWriter;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ritesh.expensetracker.model.Expense;
+
+// CSV rows: RFC 4180 quoting and amounts in plain notation, however large
+class ExpenseExportServiceTests {
+
+	private final ExpenseExportService exportService = new ExpenseExportService();
+
+	private String csvRow(Expense expense) {
+		StringWriter writer = new StringWriter();
+		ReflectionTestUtils.invokeMethod(exportService, "writeCsvRow", writer, expense);
+		return writer.toString();
+	}
+
+	@Test
+	void largeAmountIsNotInScientificNotation() {
+		Expense flat = new Expense(7L, "Flat", 12_500_000.0, "Housing", LocalDate.of(2025, 3, 14));
+
+		assertThat(csvRow(flat)).isEqualTo("7,Flat,12500000,Housing,2025-03-14\n");
+	}
+
+	@Test
+	void fieldWithSeparatorIsQuoted() {
+		Expense lunch = new Expense(8L, "Lunch, \"team\"", 12.5, "Food", LocalDate.of(2025, 3, 14));
+
+		assertThat(csvRow(lunch)).isEqualTo("8,\"Lunch, \"\"team\"\"\",12.5,Food,2025-03-14\n");
+	}
+}
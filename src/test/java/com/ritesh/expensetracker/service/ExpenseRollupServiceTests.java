@@ -0,0 +1,187 @@
+package com.ritesh.expensetracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.repository.UsersRepository;
+import com.ritesh.expensetracker.service.AI.AiResponseCache;
+
+// Fingerprints (and so AI cache keys) must change with any edit of an expense, and deltas must
+// give the same fingerprint as a reload from the database (what a restart computes).
+// Not transactional, so every write commits and its change event is delivered. The rollups outlive
+// each test in the shared context, so every test works on a user of its own.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({ExpenseService.class, ExpenseRollupService.class, AiResponseCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExpenseRollupServiceTests {
+
+	private static final AtomicLong NEXT_USER_ID = new AtomicLong(1);
+	private static final LocalDate DAY = LocalDate.now().minusDays(3);
+
+	@Autowired
+	private ExpenseService expenseService;
+
+	@Autowired
+	private ExpenseRollupService rollupService;
+
+	@Autowired
+	private AiResponseCache aiResponseCache;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private UsersRepository usersRepository;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	private Long userId;
+
+	@BeforeEach
+	void newUser() {
+		userId = NEXT_USER_ID.getAndIncrement();
+	}
+
+	@AfterEach
+	void deleteExpenses() {
+		jdbcTemplate.update("DELETE FROM expenses");
+		jdbcTemplate.update("DELETE FROM users");
+	}
+
+	private Expense create(String description, double amount, String category, LocalDate date) {
+		return expenseService.createExpense(userId, new Expense(null, description, amount, category, date));
+	}
+
+	private Expense update(Expense expense, String description, double amount, String category, LocalDate date) {
+		return expenseService.updateExpense(userId, expense.getId(), new Expense(null, description, amount, category, date));
+	}
+
+	private String key() {
+		return aiResponseCache.key(userId, "aiInsight", "GENERAL", "Where does my money go?");
+	}
+
+	@Test
+	void recategorizationChangesFingerprintAndCacheKey() {
+		Expense lunch = create("Lunch", 12.50, "Food", DAY);
+		create("Bus", 2.40, "Transport", DAY);
+		String fingerprint = rollupService.getDataFingerprint(userId);
+		String key = key();
+
+		update(lunch, "Lunch", 12.50, "Work", DAY);
+
+		assertThat(rollupService.getDataFingerprint(userId)).isNotEqualTo(fingerprint);
+		assertThat(key()).isNotEqualTo(key);
+	}
+
+	@Test
+	void dateAndDescriptionChangesChangeFingerprint() {
+		Expense lunch = create("Lunch", 12.50, "Food", DAY);
+		String original = rollupService.getDataFingerprint(userId);
+
+		update(lunch, "Lunch", 12.50, "Food", DAY.minusDays(1));
+		String moved = rollupService.getDataFingerprint(userId);
+		update(lunch, "Team lunch", 12.50, "Food", DAY.minusDays(1));
+		String renamed = rollupService.getDataFingerprint(userId);
+
+		assertThat(moved).isNotEqualTo(original);
+		assertThat(renamed).isNotEqualTo(moved).isNotEqualTo(original);
+	}
+
+	@Test
+	void replacingRowWithSameAmountChangesFingerprint() {
+		Expense lunch = create("Lunch", 12.50, "Food", DAY);
+		String fingerprint = rollupService.getDataFingerprint(userId);
+
+		expenseService.deleteExpense(userId, lunch.getId());
+		create("Cinema", 12.50, "Leisure", DAY);
+
+		assertThat(rollupService.getDataFingerprint(userId)).isNotEqualTo(fingerprint);
+	}
+
+	@Test
+	void deltasMatchReload() {
+		Expense lunch = create("Lunch", 12.50, "Food", DAY);
+		rollupService.getDataFingerprint(userId);
+		create("Bus", 2.40, "Transport", DAY);
+		update(lunch, "Dinner", 30.05, "Food", DAY.minusDays(1));
+		String fromDeltas = rollupService.getDataFingerprint(userId);
+
+		rollupService.reconcile(userId);
+
+		assertThat(rollupService.getDataFingerprint(userId)).isEqualTo(fromDeltas);
+	}
+
+	@Test
+	void rolledBackChangeIsNotApplied() {
+		create("Lunch", 12.50, "Food", DAY);
+		String fingerprint = rollupService.getDataFingerprint(userId);
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			create("Bus", 2.40, "Transport", DAY);
+			status.setRollbackOnly();
+		});
+
+		assertThat(rollupService.getDataFingerprint(userId)).isEqualTo(fingerprint);
+		rollupService.reconcile(userId);
+		assertThat(rollupService.getDataFingerprint(userId)).isEqualTo(fingerprint);
+	}
+
+	@Test
+	void responseStoredUnderPreChangeKeyIsNotServedAfterChange() {
+		Expense lunch = create("Lunch", 12.50, "Food", DAY);
+		String staleKey = key();
+
+		update(lunch, "Lunch", 12.50, "Work", DAY);
+		// a response computed from the old data arrives after the change invalidated the user
+		aiResponseCache.put(staleKey, "You spend most on Food.");
+
+		assertThat(aiResponseCache.get(key())).isEmpty();
+	}
+
+	@Test
+	void deletedUserIsDroppedOnCommit() {
+		create("Lunch", 12.50, "Food", DAY);
+		String key = key();
+		aiResponseCache.put(key, "You spend most on Food.");
+		jdbcTemplate.update("INSERT INTO users (id, name, email, password) VALUES (?, 'Gone', ?, 'secret')",
+				userId, "gone" + userId + "@gmail.com");
+		AuthService authService = new AuthService();
+		ReflectionTestUtils.setField(authService, "usersRepository", usersRepository);
+		ReflectionTestUtils.setField(authService, "eventPublisher", eventPublisher);
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			assertThat(authService.deleteUser(userId)).isTrue();
+			// what fk_expenses_user ON DELETE CASCADE does on MySQL
+			jdbcTemplate.update("DELETE FROM expenses WHERE user_id = ?", userId);
+			assertThat(rollupService.getTotalCount(userId)).isEqualTo(1);
+		});
+
+		assertThat(rollupService.getTotalCount(userId)).isZero();
+		assertThat(aiResponseCache.get(key)).isEmpty();
+	}
+}
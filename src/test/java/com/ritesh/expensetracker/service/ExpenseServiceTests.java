@@ -0,0 +1,85 @@
+package com.ritesh.expensetracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ritesh.expensetracker.model.Expense;
+import com.ritesh.expensetracker.model.ExpenseFilter;
+import com.ritesh.expensetracker.repository.ExpenseRepository;
+
+// One user can never see, change or delete another user's expense, hot or archived
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import(ExpenseService.class)
+class ExpenseServiceTests {
+
+	private static final Long ALICE = 1L;
+	private static final Long BOB = 2L;
+	private static final Long ARCHIVED_ID = 1_000_000L;
+
+	@Autowired
+	private ExpenseService expenseService;
+
+	@Autowired
+	private ExpenseRepository expenseRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Expense bobsExpense;
+
+	@BeforeEach
+	void createBobsExpenses() {
+		bobsExpense = expenseService.createExpense(BOB, new Expense(null, "Rent", 800.00, "Housing", LocalDate.now()));
+		jdbcTemplate.update("INSERT INTO expenses_archive (id, user_id, description, amount, category, expense_date) "
+				+ "VALUES (?, ?, 'Old rent', 750.00, 'Housing', ?)", ARCHIVED_ID, BOB, LocalDate.now().minusYears(3));
+	}
+
+	@Test
+	void ownerCanReadOwnExpense() {
+		assertThat(expenseService.getExpenseById(BOB, bobsExpense.getId())).isNotNull();
+		assertThat(expenseService.getExpenseById(BOB, ARCHIVED_ID)).isNotNull();
+	}
+
+	@Test
+	void otherUserCannotReadExpense() {
+		assertThat(expenseService.getExpenseById(ALICE, bobsExpense.getId())).isNull();
+		assertThat(expenseService.getExpenseById(ALICE, ARCHIVED_ID)).isNull();
+		assertThat(expenseService.getAllExpenses(ALICE)).isEmpty();
+		assertThat(expenseService.getExpensePage(ALICE, new ExpenseFilter(), null, null).getItems()).isEmpty();
+	}
+
+	@Test
+	void otherUserCannotUpdateExpense() {
+		Expense change = new Expense(null, "Mine now", 1.00, "Housing", LocalDate.now());
+
+		assertThatThrownBy(() -> expenseService.updateExpense(ALICE, bobsExpense.getId(), change))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(expenseRepository.findById(bobsExpense.getId()))
+				.hasValueSatisfying(expense -> {
+					assertThat(expense.getDescription()).isEqualTo("Rent");
+					assertThat(expense.getUserId()).isEqualTo(BOB);
+				});
+	}
+
+	@Test
+	void otherUserCannotDeleteExpense() {
+		assertThat(expenseService.deleteExpense(ALICE, bobsExpense.getId())).isFalse();
+		assertThat(expenseRepository.existsById(bobsExpense.getId())).isTrue();
+
+		assertThat(expenseService.deleteExpense(BOB, bobsExpense.getId())).isTrue();
+		assertThat(expenseRepository.existsById(bobsExpense.getId())).isFalse();
+	}
+}
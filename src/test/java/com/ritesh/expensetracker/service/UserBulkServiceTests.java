@@ -0,0 +1,183 @@
+package com.ritesh.expensetracker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ritesh.expensetracker.model.BulkInsertResult;
+import com.ritesh.expensetracker.model.BulkInsertResult.Status;
+import com.ritesh.expensetracker.model.Users;
+import com.ritesh.expensetracker.repository.UsersRepository;
+
+// Batch registration on H2 (MySQL mode, case-insensitive like MySQL's default collation).
+// The services are wired by hand: the email filter's startup load streams with a MySQL-only
+// fetch size, so it is filled here instead. Not transactional, so each batch commits or rolls back.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserBulkServiceTests {
+
+	@Autowired
+	private UsersRepository usersRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private RegisteredEmailFilter registeredEmailFilter;
+	private UserBulkService userBulkService;
+
+	@BeforeEach
+	void wireServices() {
+		registeredEmailFilter = new RegisteredEmailFilter(1_000, 0.01);
+		ReflectionTestUtils.setField(registeredEmailFilter, "loaded", true);
+
+		AuthService authService = new AuthService();
+		ReflectionTestUtils.setField(authService, "usersRepository", usersRepository);
+		ReflectionTestUtils.setField(authService, "registeredEmailFilter", registeredEmailFilter);
+
+		userBulkService = new UserBulkService();
+		ReflectionTestUtils.setField(userBulkService, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(userBulkService, "transactionManager", transactionManager);
+		ReflectionTestUtils.setField(userBulkService, "usersRepository", usersRepository);
+		ReflectionTestUtils.setField(userBulkService, "authService", authService);
+		ReflectionTestUtils.setField(userBulkService, "registeredEmailFilter", registeredEmailFilter);
+		ReflectionTestUtils.setField(userBulkService, "batchSize", 2);
+		ReflectionTestUtils.setField(userBulkService, "maxItems", 10);
+		ReflectionTestUtils.invokeMethod(userBulkService, "initializeBatchInserter");
+	}
+
+	@AfterEach
+	void deleteUsers() {
+		jdbcTemplate.update("DELETE FROM users");
+	}
+
+	private static Users user(String email) {
+		return new Users(null, email, "Name of " + email, "secret");
+	}
+
+	// A registration the filter knows about, as after the startup load
+	private void registered(String email) {
+		usersRepository.save(user(email));
+		registeredEmailFilter.add(email);
+	}
+
+	private static List<Status> statuses(BulkInsertResult result) {
+		return result.getItems().stream().map(BulkInsertResult.ItemResult::getStatus).toList();
+	}
+
+	@Test
+	void createsEveryValidUserAcrossBatches() {
+		BulkInsertResult result = userBulkService.registerUsers(List.of(
+				user("a@gmail.com"), user("b@gmail.com"), user("c@gmail.com")));
+
+		assertThat(statuses(result)).containsExactly(Status.CREATED, Status.CREATED, Status.CREATED);
+		assertThat(result.getItems()).allSatisfy(item -> assertThat(item.getId()).isNotNull());
+		assertThat(usersRepository.count()).isEqualTo(3);
+		assertThat(registeredEmailFilter.mightContain("b@gmail.com")).isTrue();
+	}
+
+	@Test
+	void duplicateWithinRequestIsInvalidIgnoringCase() {
+		BulkInsertResult result = userBulkService.registerUsers(List.of(
+				user("alice@gmail.com"), user("Alice@gmail.com"), user("bob@gmail.com")));
+
+		assertThat(statuses(result)).containsExactly(Status.CREATED, Status.INVALID, Status.CREATED);
+		assertThat(result.getItems().get(1).getError()).isEqualTo("Email appears more than once in the request.");
+		assertThat(usersRepository.count()).isEqualTo(2);
+	}
+
+	@Test
+	void registeredEmailIsInvalidIgnoringCase() {
+		registered("alice@gmail.com");
+
+		BulkInsertResult result = userBulkService.registerUsers(List.of(user("ALICE@gmail.com"), user("bob@gmail.com")));
+
+		assertThat(statuses(result)).containsExactly(Status.INVALID, Status.CREATED);
+		assertThat(result.getItems().get(0).getError()).isEqualTo("Email already exists.");
+	}
+
+	@Test
+	void invalidUsersAreReportedWithTheirMessage() {
+		Users noPassword = user("carol@gmail.com");
+		noPassword.setPassword("");
+
+		BulkInsertResult result = userBulkService.registerUsers(List.of(noPassword, user("dave@yahoo.com")));
+
+		assertThat(statuses(result)).containsExactly(Status.INVALID, Status.INVALID);
+		assertThat(result.getItems().get(0).getError()).isEqualTo("Password is required.");
+		assertThat(result.getItems().get(1).getError()).isEqualTo("We only accept Gmail addresses.");
+	}
+
+	@Test
+	void conflictDuringBatchFailsOnlyThatRow() {
+		// registered concurrently: the unique index knows the email, the filter does not
+		usersRepository.save(user("bob@gmail.com"));
+
+		BulkInsertResult result = userBulkService.registerUsers(List.of(
+				user("alice@gmail.com"), user("bob@gmail.com"), user("carol@gmail.com")));
+
+		assertThat(statuses(result)).containsExactly(Status.CREATED, Status.FAILED, Status.CREATED);
+		assertThat(result.getItems().get(1).getError()).isEqualTo("Email already exists.");
+		assertThat(usersRepository.count()).isEqualTo(3);
+		// the conflict teaches the filter, so the next attempt is caught before inserting
+		assertThat(registeredEmailFilter.mightContain("bob@gmail.com")).isTrue();
+	}
+
+	@Test
+	void batchWithMissingKeysIsRetriedRowByRow() {
+		// a driver that returns fewer generated ids than rows, as without rewriteBatchedStatements
+		JdbcTemplate losingKeys = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+			private boolean lost;
+
+			@Override
+			public int[] batchUpdate(PreparedStatementCreator psc, BatchPreparedStatementSetter pss, KeyHolder keyHolder) {
+				int[] counts = super.batchUpdate(psc, pss, keyHolder);
+				if (!lost) {
+					lost = true;
+					keyHolder.getKeyList().remove(0);
+				}
+				return counts;
+			}
+		};
+		ReflectionTestUtils.setField(userBulkService, "jdbcTemplate", losingKeys);
+		ReflectionTestUtils.invokeMethod(userBulkService, "initializeBatchInserter");
+
+		BulkInsertResult result = userBulkService.registerUsers(List.of(
+				user("alice@gmail.com"), user("bob@gmail.com"), user("carol@gmail.com")));
+
+		assertThat(statuses(result)).containsExactly(Status.CREATED, Status.CREATED, Status.CREATED);
+		assertThat(result.getItems()).extracting(BulkInsertResult.ItemResult::getId)
+				.containsExactlyElementsOf(jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class));
+	}
+
+	@Test
+	void rejectsTooManyUsers() {
+		List<Users> users = IntStream.range(0, 11).mapToObj(i -> user("u" + i + "@gmail.com")).toList();
+
+		assertThatThrownBy(() -> userBulkService.registerUsers(users))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("At most 10 users can be submitted at once");
+	}
+}